@@ -1,31 +1,148 @@
 package model;
 
+import service.managers.supportServices.IntObjectHashMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Objects;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    private HashMap<Integer, SubTask> epicSubs = new HashMap<>();
+    // Связь эпика с подзадачами хранит менеджер, а у подзадачи есть epicId, поэтому в JSON мапа не пишется:
+    // её меняют писатели, и сериализация эпика в другом потоке падала бы с ConcurrentModificationException
+    private transient IntObjectHashMap<SubTask> epicSubs = new IntObjectHashMap<>();
     private LocalDateTime endTime;
+    // агрегаты по подзадачам обновляются дельтами, без пересчёта всей мапы
+    private transient Rollup rollup;
+
+    private static class SubTaskState {
+        private final TaskStatus status;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        private SubTaskState(SubTask subTask) {
+            this.status = subTask.getStatus();
+            this.startTime = subTask.getStartTime();
+            this.endTime = subTask.getEndTime();
+        }
+    }
+
+    private static class Rollup {
+        private final IntObjectHashMap<SubTaskState> states = new IntObjectHashMap<>();
+        private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+        private int newCounter;
+        private int doneCounter;
+
+        private void add(int id, SubTask subTask) {
+            SubTaskState state = new SubTaskState(subTask);
+            states.put(id, state);
+            if (state.status == TaskStatus.NEW) {
+                newCounter++;
+            } else if (state.status == TaskStatus.DONE) {
+                doneCounter++;
+            }
+            increment(startTimes, state.startTime);
+            increment(endTimes, state.endTime);
+        }
 
+        private void remove(int id) {
+            SubTaskState state = states.remove(id);
+            if (state == null) {
+                return;
+            }
+            if (state.status == TaskStatus.NEW) {
+                newCounter--;
+            } else if (state.status == TaskStatus.DONE) {
+                doneCounter--;
+            }
+            decrement(startTimes, state.startTime);
+            decrement(endTimes, state.endTime);
+        }
+
+        private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.merge(time, 1, Integer::sum);
+            }
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
 
     public Epic(String name, String description) {
         super(name, description);
         setType(TasksType.EPIC);
     }
 
+    // подзадачи не копируются: в срезе они лежат отдельно, а статус и время эпика уже посчитаны
+    private Epic(Epic source) {
+        super(source);
+        this.endTime = source.endTime;
+    }
+
     public Epic(String[] attributes) {
         super(attributes);
         setType(TasksType.EPIC);
-        getEndTime();
+        initilizeTime();
     }
 
 
-    public HashMap<Integer, SubTask> getEpicSubs() {
+    @Override
+    public Epic copy() {
+        return new Epic(this);
+    }
+
+    public IntObjectHashMap<SubTask> getEpicSubs() {
+        if (epicSubs == null) {
+            epicSubs = new IntObjectHashMap<>();
+        }
         return epicSubs;
     }
 
+    public void putSubTask(SubTask subTask) {
+        Rollup rollup = getRollup();
+        rollup.remove(subTask.getId());
+        getEpicSubs().put(subTask.getId(), subTask);
+        rollup.add(subTask.getId(), subTask);
+        updateStatus();
+        initilizeTime();
+    }
+
+    public void removeSubTask(int id) {
+        getEpicSubs().remove(id);
+        getRollup().remove(id);
+        updateStatus();
+        initilizeTime();
+    }
+
+    public void updateStatus() {
+        Rollup rollup = getRollup();
+        int size = rollup.states.size();
+        if (size == 0 || rollup.newCounter == size) {
+            setStatus(TaskStatus.NEW);
+        } else if (rollup.doneCounter == size) {
+            setStatus(TaskStatus.DONE);
+        } else {
+            setStatus(TaskStatus.IN_PROGRESS);
+        }
+    }
+
+    // эпик, пришедший из JSON, создаётся без конструктора, поэтому агрегаты строятся при первом обращении
+    private Rollup getRollup() {
+        if (rollup == null) {
+            rollup = new Rollup();
+            for (SubTask subTask : getEpicSubs().values()) {
+                rollup.add(subTask.getId(), subTask);
+            }
+        }
+        return rollup;
+    }
+
+    // подзадачи в сравнение не входят: их набор хранится в менеджере, а сравнение мап стоило бы O(подзадач)
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -33,13 +150,13 @@ public class Epic extends Task {
         Epic epic = (Epic) o;
         return this.getId() == epic.getId() && this.getName().equals(epic.getName())
                 && this.getDescription().equals(epic.getDescription())
-                && this.getStatus().equals(epic.getStatus()) && this.getEpicSubs().equals(epic.getEpicSubs());
+                && this.getStatus().equals(epic.getStatus());
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(this.getName(), this.getDescription(),
-                this.getId(), this.getStatus(), this.getEpicSubs());
+                this.getId(), this.getStatus());
     }
 
     @Override
@@ -52,57 +169,20 @@ public class Epic extends Task {
                 + '}';
     }
 
-    @Override
-    public LocalDateTime getStartTime() {
-        LocalDateTime startTime = null;
-        if (!epicSubs.isEmpty()) {
-            SubTask sub = epicSubs.values().iterator().next();
-            startTime = sub.getStartTime();
-            for (SubTask value : epicSubs.values()) {
-                LocalDateTime anotherStartTime = value.getStartTime();
-                if (anotherStartTime != null) {
-                    if (startTime == null ? true : anotherStartTime.isBefore(startTime)) {
-                        startTime = anotherStartTime;
-                    }
-                }
-            }
-        }
-        this.startTime = startTime;
-
-        return startTime;
-    }
-
     @Override
     public LocalDateTime getEndTime() {
-        LocalDateTime endTime = null;
-        if (!epicSubs.isEmpty()) {
-            SubTask sub = epicSubs.values().iterator().next();
-            endTime = sub.getEndTime();
-            for (SubTask value : epicSubs.values()) {
-                LocalDateTime anotherEndTime = value.getEndTime();
-                if (anotherEndTime != null) {
-                    if (endTime == null ? true : anotherEndTime.isAfter(endTime)) {
-                        endTime = anotherEndTime;
-                    }
-                }
-            }
-        }
-        this.endTime = endTime;
-
         return endTime;
     }
 
     public void initilizeTime() {
-        getStartTime();
-        getEndTime();
-        getDuration();
-    }
-
-    @Override
-    public Duration getDuration() {
+        Rollup rollup = getRollup();
+        startTime = rollup.startTimes.isEmpty() ? null : rollup.startTimes.firstKey();
+        endTime = rollup.endTimes.isEmpty() ? null : rollup.endTimes.lastKey();
         if (endTime != null && startTime != null) {
             duration = Duration.between(startTime, endTime);
+        } else {
+            duration = null;
         }
-        return duration;
+        touch();
     }
 }
@@ -22,6 +22,11 @@ public class SubTask extends Task {
 
     }
 
+    private SubTask(SubTask source) {
+        super(source);
+        this.epicId = source.epicId;
+    }
+
     public SubTask(String[] attributes) {
         super(attributes);
         this.epicId = Integer.parseInt(attributes[5]);
@@ -49,6 +54,11 @@ public class SubTask extends Task {
                 this.getId(), this.getStatus(), this.getEpicId());
     }
 
+    @Override
+    public SubTask copy() {
+        return new SubTask(this);
+    }
+
     public int getEpicId() {
         return epicId;
     }
@@ -14,6 +14,11 @@ public class Task {
     private TasksType type;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // версия растёт при каждом изменении полей; committedVersion и committedStartTime - состояние,
+    // зафиксированное менеджером. Поля transient: в файл/JSON они не попадают
+    private transient long version;
+    private transient long committedVersion;
+    private transient LocalDateTime committedStartTime;
 
     public Task(String name, String description) {
         this.name = name;
@@ -31,6 +36,18 @@ public class Task {
         this.duration = Duration.ofMinutes(duration);
     }
 
+    // копия для среза менеджера: поля переносятся как есть, и копия сразу считается зафиксированной
+    protected Task(Task source) {
+        this.name = source.name;
+        this.description = source.description;
+        this.id = source.id;
+        this.status = source.status;
+        this.type = source.type;
+        this.duration = source.duration;
+        this.startTime = source.startTime;
+        markCommitted();
+    }
+
     public Task(String[] attributes) {
         this.id = Integer.parseInt(attributes[0]);
         this.type = TasksType.TASK;
@@ -44,6 +61,10 @@ public class Task {
     }
 
 
+    public Task copy() {
+        return new Task(this);
+    }
+
     public TasksType getType() {
         return type;
     }
@@ -88,6 +109,7 @@ public class Task {
 
     public void setName(String name) {
         this.name = name;
+        touch();
     }
 
     public String getDescription() {
@@ -96,10 +118,35 @@ public class Task {
 
     public void setStatus(TaskStatus status) {
         this.status = status;
+        touch();
     }
 
     public void setDescription(String description) {
         this.description = description;
+        touch();
+    }
+
+    protected void touch() {
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // изменён ли объект после последней фиксации в менеджере
+    public boolean isModified() {
+        return version != committedVersion;
+    }
+
+    public void markCommitted() {
+        committedVersion = version;
+        committedStartTime = startTime;
+    }
+
+    // по этому времени задача упорядочена в менеджере, пока изменения на месте не зафиксированы
+    public LocalDateTime getCommittedStartTime() {
+        return committedStartTime;
     }
 
     public int getId() {
@@ -124,10 +171,12 @@ public class Task {
 
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        touch();
     }
 
     public void setDuration(Duration duration) {
         this.duration = duration;
+        touch();
     }
 
     public Duration getDuration() {
@@ -0,0 +1,151 @@
+package service.managers;
+
+import model.Task;
+import service.managers.supportServices.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// История на параллельных массивах: порядок просмотров хранится в int[] prev/next по номерам ячеек,
+// свободные ячейки связаны в список через next. Все массивы выделяются один раз на capacity записей,
+// поэтому add, перенос в конец и remove не создают объектов.
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int NONE = -1;
+
+    private final Task[] tasks;
+    private final int[] prev;
+    private final int[] next;
+    private final IntIntHashMap slotById;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free;
+    private int size;
+
+    public ArrayHistoryManager() {
+        this(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public ArrayHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        tasks = new Task[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        slotById = new IntIntHashMap(capacity);
+        for (int i = 0; i < capacity; i++) {
+            next[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        free = 0;
+    }
+
+    public int getCapacity() {
+        return tasks.length;
+    }
+
+    @Override
+    public void add(Task task) {
+        int slot = slotById.get(task.getId());
+        if (slot != IntIntHashMap.MISSING) {
+            unlink(slot);
+        } else {
+            if (size == tasks.length) {
+                evict(head);
+            }
+            slot = free;
+            free = next[slot];
+            slotById.put(task.getId(), slot);
+            size++;
+        }
+        tasks[slot] = task;
+        linkLast(slot);
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = slotById.get(id);
+        if (slot != IntIntHashMap.MISSING) {
+            evict(slot);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            history.add(tasks[slot]);
+        }
+        return history;
+    }
+
+    // обход цепочки ячеек без копирования; поток нужно дочитать до следующего изменения истории
+    @Override
+    public Stream<Task> stream() {
+        PrimitiveIterator.OfInt slots = new PrimitiveIterator.OfInt() {
+            private int current = head;
+
+            @Override
+            public boolean hasNext() {
+                return current != NONE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (current == NONE) {
+                    throw new NoSuchElementException();
+                }
+                int slot = current;
+                current = next[slot];
+                return slot;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliterator(slots, size,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).mapToObj(slot -> tasks[slot]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void evict(int slot) {
+        unlink(slot);
+        slotById.remove(tasks[slot].getId());
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+}
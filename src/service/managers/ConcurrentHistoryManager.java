@@ -0,0 +1,162 @@
+package service.managers;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Потокобезопасная история с низкой конкуренцией. Просмотр только помечается номером из общего счётчика
+// и кладётся в буфер своей полосы (полоса выбирается по потоку), упорядоченный список при этом не трогается.
+// Буферы сливаются в историю лениво: в getHistory() или когда буфер полосы переполнился.
+// Слияние применяет события строго по номерам, поэтому побеждает последний по времени просмотр или удаление.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int STRIPES_COUNT = 16;
+    private static final int DRAIN_THRESHOLD = 64;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Stripe[] stripes = new Stripe[STRIPES_COUNT];
+    private final ReentrantLock mergeLock = new ReentrantLock();
+    // всё, что ниже, меняется только под mergeLock
+    private final HistoryManager ordered;
+    private final List<Event> pending = new ArrayList<>();
+
+    private static class Event {
+        private final long stamp;
+        private final Task task;
+        private final int id;
+
+        private Event(long stamp, Task task, int id) {
+            this.stamp = stamp;
+            this.task = task;
+            this.id = id;
+        }
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private List<Event> buffer = new ArrayList<>();
+    }
+
+    public ConcurrentHistoryManager() {
+        this(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        ordered = new ArrayHistoryManager(capacity);
+        for (int i = 0; i < STRIPES_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        record(task, task.getId());
+    }
+
+    @Override
+    public void remove(int id) {
+        record(null, id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        mergeLock.lock();
+        try {
+            drain();
+            return ordered.getHistory();
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    // страница и размер считаются по слитой истории, без копирования её целиком
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        mergeLock.lock();
+        try {
+            drain();
+            return ordered.getHistory(offset, limit);
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    // размер и хвост берутся под одной блокировкой, чтобы между ними история не сдвинулась
+    @Override
+    public List<Task> getRecentHistory(int limit) {
+        mergeLock.lock();
+        try {
+            drain();
+            return ordered.getRecentHistory(limit);
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        mergeLock.lock();
+        try {
+            drain();
+            return ordered.size();
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    // номер берётся под блокировкой полосы, поэтому событие попадает в буфер сразу вместе с номером
+    private void record(Task task, int id) {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES_COUNT - 1)];
+        int buffered;
+        stripe.lock.lock();
+        try {
+            stripe.buffer.add(new Event(clock.incrementAndGet(), task, id));
+            buffered = stripe.buffer.size();
+        } finally {
+            stripe.lock.unlock();
+        }
+        // переполненный буфер сливает тот, кто первым захватил mergeLock; остальные не ждут
+        if (buffered >= DRAIN_THRESHOLD && mergeLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                mergeLock.unlock();
+            }
+        }
+    }
+
+    // Все события с номером меньше прочитанной границы уже лежат в буферах: номер выдаётся под блокировкой
+    // полосы, а полоса забирается после чтения границы. События с номером выше границы ждут следующего
+    // слияния, иначе более раннее событие соседней полосы могло бы примениться после них.
+    private void drain() {
+        long bound = clock.get();
+        for (Stripe stripe : stripes) {
+            List<Event> drained;
+            stripe.lock.lock();
+            try {
+                if (stripe.buffer.isEmpty()) {
+                    continue;
+                }
+                drained = stripe.buffer;
+                stripe.buffer = new ArrayList<>();
+            } finally {
+                stripe.lock.unlock();
+            }
+            pending.addAll(drained);
+        }
+        pending.sort(Comparator.comparingLong(event -> event.stamp));
+        int applied = 0;
+        while (applied < pending.size() && pending.get(applied).stamp <= bound) {
+            Event event = pending.get(applied++);
+            if (event.task != null) {
+                ordered.add(event.task);
+            } else {
+                ordered.remove(event.id);
+            }
+        }
+        pending.subList(0, applied).clear();
+    }
+}
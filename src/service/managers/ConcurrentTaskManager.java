@@ -0,0 +1,284 @@
+package service.managers;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TasksType;
+import service.managers.supportServices.ManagerCreateException;
+import service.utilites.Managers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Потокобезопасный менеджер с блокировками по эпику или задаче; порядок: batchGate -> timeSlotLock -> полоса
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES_COUNT = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES_COUNT];
+    private final ReentrantLock timeSlotLock = new ReentrantLock();
+    private final ReentrantReadWriteLock batchGate = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getConcurrentHistory());
+    }
+
+    // однопоточная история оборачивается общей блокировкой, ConcurrentHistoryManager используется как есть
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager instanceof ConcurrentHistoryManager
+                ? historyManager
+                : new SynchronizedHistoryManager(historyManager));
+        tasks = new ConcurrentHashMap<>();
+        epics = new ConcurrentHashMap<>();
+        subTasks = new ConcurrentHashMap<>();
+        tasksSet = new ConcurrentSkipListSet<>(PRIORITY_ORDER);
+        for (int i = 0; i < STRIPES_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected <T extends Task> T findIn(Map<Integer, T> storage, int id) {
+        return storage.get(id);
+    }
+
+    @Override
+    protected <T extends Task> void putIn(Map<Integer, T> storage, int id, T task) {
+        storage.put(id, task);
+    }
+
+    @Override
+    protected <T extends Task> T removeFrom(Map<Integer, T> storage, int id) {
+        return storage.remove(id);
+    }
+
+    static class SynchronizedHistoryManager implements HistoryManager {
+        private final HistoryManager delegate;
+
+        SynchronizedHistoryManager(HistoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            delegate.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            delegate.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return delegate.getHistory();
+        }
+
+        @Override
+        public synchronized List<Task> getHistory(int offset, int limit) {
+            return delegate.getHistory(offset, limit);
+        }
+
+        @Override
+        public synchronized List<Task> getRecentHistory(int limit) {
+            return delegate.getRecentHistory(limit);
+        }
+
+        @Override
+        public synchronized int size() {
+            return delegate.size();
+        }
+    }
+
+    private ReentrantLock stripeFor(int key) {
+        return stripes[key & (STRIPES_COUNT - 1)];
+    }
+
+    // подзадачи блокируются по своему эпику, так как меняют его статус и время
+    private ReentrantLock stripeFor(Task task) {
+        if (task.getType() == TasksType.SUBTASK) {
+            return stripeFor(((SubTask) task).getEpicId());
+        }
+        return stripeFor(task.getId());
+    }
+
+    private boolean needsTimeSlot(Task task) {
+        return task.getType() != TasksType.EPIC && task.getStartTime() != null;
+    }
+
+    // все изменения проходят под разделяемой блокировкой batchGate: писатели не мешают друг другу,
+    // а создание пакета получает её эксклюзивно
+    private <R> R write(Task task, boolean timed, Supplier<R> action) {
+        return write(stripeFor(task), timed, action);
+    }
+
+    private <R> R write(ReentrantLock stripe, boolean timed, Supplier<R> action) {
+        batchGate.readLock().lock();
+        try {
+            if (timed) {
+                timeSlotLock.lock();
+            }
+            try {
+                stripe.lock();
+                try {
+                    return action.get();
+                } finally {
+                    stripe.unlock();
+                }
+            } finally {
+                if (timed) {
+                    timeSlotLock.unlock();
+                }
+            }
+        } finally {
+            batchGate.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T extends Task> T createTask(T task) {
+        if (!needsTimeSlot(task)) {
+            task.setId(idCounter.incrementAndGet());
+            return write(task, false, () -> putTask(task));
+        }
+        return write(task, true, () -> {
+            if (validateTimeIntersection(task)) {
+                throw new ManagerCreateException("Задачи пересекаются по времени");
+            }
+            task.setId(idCounter.incrementAndGet());
+            return putTask(task);
+        });
+    }
+
+    @Override
+    public <T extends Task> T createTaskFromSource(T task) {
+        return write(task, needsTimeSlot(task), () -> {
+            if (validateTimeIntersection(task)) {
+                throw new ManagerCreateException("Задачи пересекаются по времени");
+            }
+            return putTask(task);
+        });
+    }
+
+    // пакет затрагивает произвольные полосы и слоты, поэтому создаётся под эксклюзивной блокировкой
+    @Override
+    public <T extends Task> List<T> createTasks(Collection<? extends T> tasks) {
+        batchGate.writeLock().lock();
+        try {
+            return super.createTasks(tasks);
+        } finally {
+            batchGate.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            super.updateTask(null);
+            return;
+        }
+        write(task, needsTimeSlot(task), () -> {
+            super.updateTask(task);
+            return null;
+        });
+    }
+
+    @Override
+    public void setStatus(Task task, TaskStatus status) {
+        write(task, false, () -> {
+            super.setStatus(task, status);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeTask(Task task) {
+        if (task != null) {
+            write(task, false, () -> {
+                super.removeTask(task);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void removeSubTask(SubTask subTask) {
+        if (subTask != null) {
+            write(subTask, false, () -> {
+                super.removeSubTask(subTask);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void removeEpic(Epic epic) {
+        if (epic != null) {
+            write(epic, false, () -> {
+                super.removeEpic(epic);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public Task removeTaskById(int id) {
+        return write(stripeFor(id), false, () -> super.removeTaskById(id));
+    }
+
+    // полоса подзадачи определяется её эпиком, поэтому подзадачу сначала находим без блокировки
+    @Override
+    public SubTask removeSubTaskById(int id) {
+        SubTask subTask = findIn(subTasks, id);
+        if (subTask == null) {
+            return null;
+        }
+        return write(subTask, false, () -> super.removeSubTaskById(id));
+    }
+
+    @Override
+    public Epic removeEpicById(int id) {
+        return write(stripeFor(id), false, () -> super.removeEpicById(id));
+    }
+
+    // просмотр добавляет задачу в историю, поэтому идёт под её полосой: иначе удаление между поиском
+    // и добавлением оставило бы удалённую задачу в истории
+    @Override
+    public Task getTaskById(int id) {
+        return write(stripeFor(id), false, () -> super.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return write(stripeFor(id), false, () -> super.getEpicById(id));
+    }
+
+    // полоса подзадачи - полоса эпика, так что подзадача ищется повторно уже под блокировкой
+    @Override
+    public SubTask getSubTaskById(int id) {
+        SubTask subTask = findIn(subTasks, id);
+        if (subTask == null) {
+            return null;
+        }
+        return write(subTask, false, () -> super.getSubTaskById(id));
+    }
+
+    // мапа подзадач эпика не потокобезопасна, поэтому наружу отдаётся копия; в JSON эпика она не попадает
+    @Override
+    public Map<Integer, SubTask> getAllEpicSubTasks(Epic epic) {
+        ReentrantLock stripe = stripeFor(epic);
+        stripe.lock();
+        try {
+            return new HashMap<>(epic.getEpicSubs());
+        } finally {
+            stripe.unlock();
+        }
+    }
+}
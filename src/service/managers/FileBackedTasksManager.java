@@ -3,23 +3,371 @@ package service.managers;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
 import model.TasksType;
+import service.managers.supportServices.BinarySnapshot;
+import service.managers.supportServices.CsvCodec;
+import service.managers.supportServices.Durability;
 import service.managers.supportServices.ManagerSaveException;
+import service.managers.supportServices.MappedSnapshot;
+import service.managers.supportServices.ParallelCsvReader;
+import service.managers.supportServices.SnapshotFormat;
+import service.managers.supportServices.TaskJournal;
+import service.managers.supportServices.WriteBehindQueue;
 import service.utilites.Managers;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class FileBackedTasksManager extends InMemoryTaskManager {
+    // начиная с этого размера снимок читается параллельно
+    public static final long PARALLEL_LOAD_THRESHOLD = 8L << 20;
+    // у кодека свои буферы, поэтому он у каждого потока свой: пишут и поток менеджера, и фоновые
+    private static final ThreadLocal<CsvCodec> CODEC = ThreadLocal.withInitial(CsvCodec::new);
     private File fileToSave;
+    // в отложенном режиме просмотр только помечает историю; в файл она попадёт со следующим сохранением
+    private final boolean deferHistory;
+    private volatile boolean historyDirty;
+    // в режиме журнала изменения дописываются в <файл>.journal, полный снимок пишется только при save()
+    private final TaskJournal journal;
+    // снимок и журнал при SYNC и BATCHED сбрасываются на диск через fsync, при NONE остаются в кэше ОС
+    private final Durability durability;
+    // формат полного снимка; журнал всегда текстовый
+    private final SnapshotFormat format;
+    // при загрузке изменения проигрываются через обычные методы, но повторно не сохраняются
+    private boolean restoring;
+    // пороги фонового сжатия журнала в снимок; 0 - порог не задан
+    private int maxJournalRecords;
+    private long maxJournalSize;
+    private ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile Future<?> compaction = CompletableFuture.completedFuture(null);
+    // save() и сжатие пишут снимок по очереди; сжатие по срезу старого поколения снимок не перезаписывает
+    private final Object snapshotLock = new Object();
+    private long snapshotGeneration;
+    // отложенная запись: в очередь идут строки журнала или отметки для полного снимка
+    private WriteBehindQueue<String> recordQueue;
+    private WriteBehindQueue<Dirty> stateQueue;
+    // история, вошедшая в последний полный снимок: её пишет и писатель, если история с тех пор не менялась
+    private volatile List<Integer> persistedHistory = Collections.emptyList();
+
+    // отметка для писателя снимка; ids истории снимает поток менеджера, если она менялась, иначе null
+    private static class Dirty {
+        private final List<Integer> history;
+
+        private Dirty(List<Integer> history) {
+            this.history = history;
+        }
+    }
 
     public FileBackedTasksManager(String fileToSave) {
+        this(fileToSave, false);
+    }
+
+    public FileBackedTasksManager(String fileToSave, boolean deferHistory) {
+        this(fileToSave, deferHistory, false);
+    }
+
+    public FileBackedTasksManager(String fileToSave, boolean deferHistory, boolean journaled) {
+        this(fileToSave, deferHistory, journaled, Durability.NONE);
+    }
+
+    public FileBackedTasksManager(String fileToSave, boolean deferHistory, boolean journaled,
+                                  Durability durability) {
+        this(fileToSave, deferHistory, journaled, durability, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTasksManager(String fileToSave, boolean deferHistory, boolean journaled,
+                                  Durability durability, SnapshotFormat format) {
+        this(fileToSave, deferHistory, journaled, durability, format, Managers.getDefaultHistory());
+    }
+
+    public FileBackedTasksManager(String fileToSave, boolean deferHistory, boolean journaled,
+                                  Durability durability, SnapshotFormat format, HistoryManager historyManager) {
+        super(historyManager);
         if(fileToSave != null) {
             this.fileToSave = new File(fileToSave).getAbsoluteFile();
         }
+        this.deferHistory = deferHistory;
+        this.durability = durability;
+        this.format = format;
+        journal = journaled ? new TaskJournal(journalFileFor(this.fileToSave), durability) : null;
+    }
+
+    public static File journalFileFor(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    public boolean isHistoryDirty() {
+        return historyDirty;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    // размер группы для Durability.BATCHED: см. TaskJournal.setBatchLimits
+    public void setBatchLimits(long millis, int records) {
+        if (journal == null) {
+            throw new IllegalStateException("Групповая фиксация доступна только в режиме журнала");
+        }
+        journal.setBatchLimits(millis, records);
+    }
+
+    // отложенная запись: методы менеджера возвращаются сразу после изменения памяти
+    public void enableWriteBehind(int capacity) {
+        if (recordQueue != null || stateQueue != null) {
+            throw new IllegalStateException("Отложенная запись уже включена");
+        }
+        if (journal != null) {
+            recordQueue = new WriteBehindQueue<>("journal-writer", capacity,
+                    FileBackedTasksManager::mergeRecords, this::writeRecords);
+        } else {
+            // для полного снимка важно только последнее состояние: срез неизменяем, и писатель
+            // сериализует его без блокировок, пока менеджер продолжает меняться
+            persistedHistory = historyIds();
+            stateQueue = new WriteBehindQueue<>("snapshot-writer", capacity,
+                    (older, newer) -> newer.history != null ? newer : older,
+                    batch -> {
+                        List<Integer> history = persistedHistory;
+                        for (Dirty dirty : batch) {
+                            if (dirty.history != null) {
+                                history = dirty.history;
+                            }
+                        }
+                        saveState(getSnapshot(), history);
+                        persistedHistory = history;
+                    });
+        }
+    }
+
+    public boolean isWriteBehind() {
+        return recordQueue != null || stateQueue != null;
+    }
+
+    // ждёт, пока записаны все изменения до ревизии revision включительно (см. getRevision())
+    public void awaitPersisted(long revision) {
+        if (recordQueue != null) {
+            recordQueue.awaitPersisted(revision);
+        }
+        if (stateQueue != null) {
+            stateQueue.awaitPersisted(revision);
+        }
+    }
+
+    // следующая запись той же задачи заменяет предыдущую, если несёт всё её содержимое
+    private static String mergeRecords(String older, String newer) {
+        char previous = older.charAt(0);
+        switch (newer.charAt(0)) {
+            case TaskJournal.CREATE:
+            case TaskJournal.UPDATE:
+                if (previous == TaskJournal.CREATE) {
+                    return TaskJournal.CREATE + newer.substring(1);
+                }
+                return previous == TaskJournal.UPDATE || previous == TaskJournal.STATUS ? newer : null;
+            case TaskJournal.DELETE:
+                return previous == TaskJournal.VIEW ? null : newer;
+            case TaskJournal.STATUS:
+            case TaskJournal.VIEW:
+                return previous == newer.charAt(0) ? newer : null;
+            default:
+                return null;
+        }
+    }
+
+    private void writeRecords(List<String> records) {
+        for (String record : records) {
+            journal.append(record.charAt(0), record.substring(2));
+        }
+        journal.flush();
+    }
+
+    // при SYNC и BATCHED возвращается, только когда записанное зафиксировано на диске
+    public void flush() {
+        if (recordQueue != null) {
+            recordQueue.flush();
+        }
+        if (stateQueue != null) {
+            stateQueue.flush();
+        }
+        if (journal != null) {
+            if (durability == Durability.NONE) {
+                journal.flush();
+            } else {
+                journal.sync();
+            }
+        } else if (historyDirty) {
+            historyDirty = false;
+            save();
+        }
+    }
+
+    // дописывает очередь и дожидается сжатия; дальше менеджер снова пишет синхронно
+    public void close() {
+        if (recordQueue != null) {
+            recordQueue.close();
+            recordQueue = null;
+        }
+        if (stateQueue != null) {
+            stateQueue.close();
+            stateQueue = null;
+        }
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            compactor = null;
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // сжатие запускается, когда в журнале набралось maxRecords записей или maxSize символов
+    public void setCompactionThresholds(int maxRecords, long maxSize) {
+        if (journal == null) {
+            throw new IllegalStateException("Сжатие доступно только в режиме журнала");
+        }
+        if (maxRecords < 0 || maxSize < 0) {
+            throw new IllegalArgumentException("Пороги сжатия не могут быть отрицательными");
+        }
+        maxJournalRecords = maxRecords;
+        maxJournalSize = maxSize;
+    }
+
+    // журнал откладывается в .old, снимок из среза пишется в фоне; если сжатие уже идёт, вернётся его Future
+    public Future<?> compact() {
+        if (journal == null) {
+            throw new IllegalStateException("Сжатие доступно только в режиме журнала");
+        }
+        if (!compacting.compareAndSet(false, true)) {
+            return compaction;
+        }
+        try {
+            long generation;
+            synchronized (snapshotLock) {
+                generation = snapshotGeneration;
+            }
+            journal.rotate();
+            TasksSnapshot view = getSnapshot();
+            List<Integer> history = historyIds();
+            compaction = compactor().submit(() -> writeCompacted(view, history, generation));
+        } catch (RuntimeException ex) {
+            compacting.set(false);
+            throw ex;
+        }
+        return compaction;
+    }
+
+    private ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    private void writeCompacted(TasksSnapshot view, List<Integer> history, long generation) {
+        try {
+            synchronized (snapshotLock) {
+                // полный save() после среза уже записал более новое состояние и удалил старый журнал
+                if (generation != snapshotGeneration) {
+                    return;
+                }
+                writeSnapshot(fileToSave, view, history);
+                journal.deleteRotated();
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if ((maxJournalRecords > 0 && journal.getRecords() >= maxJournalRecords)
+                || (maxJournalSize > 0 && journal.getSize() >= maxJournalSize)) {
+            compact();
+        }
+    }
+
+    private void persist(char type, int id, String data) {
+        if (restoring) {
+            return;
+        }
+        if (journal != null) {
+            if (recordQueue != null) {
+                recordQueue.submit(id, type + "," + data, getRevision());
+            } else {
+                journal.write(type, data);
+            }
+            compactIfNeeded();
+        } else {
+            persistState(type == TaskJournal.DELETE);
+        }
+    }
+
+    // удаление задачи убирает её и из истории, отложенные просмотры уходят со следующим изменением
+    private void persistState(boolean historyChanged) {
+        if (stateQueue != null) {
+            List<Integer> history = null;
+            if (historyChanged || historyDirty) {
+                historyDirty = false;
+                history = historyIds();
+            }
+            stateQueue.submit(Dirty.class, new Dirty(history), getRevision());
+        } else {
+            save();
+        }
+    }
+
+    private void saveHistory(Task viewed) {
+        if (restoring) {
+            return;
+        }
+        if (journal != null) {
+            if (recordQueue != null) {
+                recordQueue.submit(viewed.getId(), TaskJournal.VIEW + "," + viewed.getId(), getRevision());
+            } else {
+                // в отложенном режиме запись просмотра уходит на диск вместе со следующим изменением
+                journal.append(TaskJournal.VIEW, String.valueOf(viewed.getId()));
+                if (!deferHistory) {
+                    journal.flush();
+                }
+            }
+            compactIfNeeded();
+        } else if (deferHistory) {
+            historyDirty = true;
+        } else {
+            persistState(true);
+        }
     }
 
     public File getFileToSave() {
@@ -27,63 +375,115 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     }
 
     public String toString(Task task) {
-        StringJoiner joiner = new StringJoiner(",");
-        if (task.getType() == TasksType.SUBTASK) {
-            SubTask sub = (SubTask) task;
-            joiner.add(String.valueOf(sub.getId()));
-            joiner.add(sub.getType().toString());
-            joiner.add(sub.getName());
-            joiner.add(sub.getStatus().toString());
-            joiner.add(sub.getDescription());
-            joiner.add(String.valueOf(sub.getEpicId()));
-        } else {
-            joiner.add(String.valueOf(task.getId()));
-            joiner.add(task.getType().toString());
-            joiner.add(task.getName());
-            joiner.add(task.getStatus().toString());
-            joiner.add(task.getDescription());
+        return CODEC.get().encode(task);
+    }
+
+    public static String historyToString(HistoryManager manager) {
+        return manager.stream()
+                .map(task -> String.valueOf(task.getId()))
+                .collect(Collectors.joining(","));
+    }
+
+    List<Integer> historyIds() {
+        return historyManager.stream().map(Task::getId).collect(Collectors.toList());
+    }
+
+    // записывает текущее состояние сразу, предварительно дописав очередь отложенной записи
+    public void save() {
+        historyDirty = false;
+        if (recordQueue != null) {
+            recordQueue.flush();
         }
-        if (task.getStartTime() != null) {
-            joiner.add(task.getStartTime().format(Managers.DATE_TIME_FORMATTER));
-            joiner.add(task.getEndTime().format(Managers.DATE_TIME_FORMATTER));
-            joiner.add(String.valueOf(task.getDuration().toMinutes()));
+        if (stateQueue != null) {
+            stateQueue.flush();
         }
-        return joiner.toString();
+        List<Integer> history = historyIds();
+        saveState(getSnapshot(), history);
+        persistedHistory = history;
     }
 
-    public static String historyToString(HistoryManager manager) {
-        StringJoiner joiner = new StringJoiner(",");
-        for (Task task : manager.getHistory()) {
-            joiner.add(String.valueOf(task.getId()));
+    // полный снимок состояния; HttpTaskManager вместо файла пишет его на KV-сервер
+    protected void saveState(TasksSnapshot view, List<Integer> history) {
+        synchronized (snapshotLock) {
+            snapshotGeneration++;
+            writeSnapshot(fileToSave, view, history);
+            // журнал очищается только после замены снимка: при сбое записи он ещё нужен
+            if (journal != null) {
+                journal.truncate();
+                journal.deleteRotated();
+            }
         }
-        return joiner.toString();
     }
 
-    public void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
+    private void writeSnapshot(File target, TasksSnapshot view, List<Integer> history) {
+        if (format == SnapshotFormat.BINARY) {
+            writeAtomically(target, temp -> BinarySnapshot.write(temp, List.of(view.getTasks().values(),
+                    view.getEpics().values(), view.getSubTasks().values()), history,
+                    durability != Durability.NONE, true));
+        } else {
+            writeAtomically(target, temp -> writeCsv(temp, view, history));
+        }
+    }
+
+    // файл пишется рядом во временный и атомарно заменяет target: сбой посреди записи оставляет прежний
+    private static void writeAtomically(File target, Consumer<File> writer) {
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            writer.accept(temp);
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в файл");
+        } finally {
+            try {
+                Files.deleteIfExists(temp.toPath());
+            } catch (IOException ignored) {
+                // недописанный временный файл перезапишется при следующем сохранении
+            }
+        }
+    }
+
+    // текущее состояние в CSV независимо от формата снимка - для обмена и ручного просмотра
+    public void exportCsv(File target) {
+        TasksSnapshot view = getSnapshot();
+        List<Integer> history = historyIds();
+        writeAtomically(target, temp -> writeCsv(temp, view, history));
+    }
+
+    // двоичный снимок с индексом по id независимо от формата менеджера; его читает MappedSnapshot
+    public void exportIndexed(File target) {
+        TasksSnapshot view = getSnapshot();
+        List<Integer> history = historyIds();
+        writeAtomically(target, temp -> BinarySnapshot.write(temp, List.of(view.getTasks().values(),
+                view.getEpics().values(), view.getSubTasks().values()), history, durability != Durability.NONE, true));
+    }
+
+    // CSV всегда в UTF-8: в ней же читают ParallelCsvReader и журнал, и файл не зависит от кодировки ОС
+    private void writeCsv(File target, TasksSnapshot view, List<Integer> history) {
+        try (FileOutputStream out = new FileOutputStream(target);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
             writer.write("id,type,name,status,description,epic,startTime,endTime,duration");
             writer.newLine();
-            if (!tasks.isEmpty()) {
-                for (Task task : tasks.values()) {
-                    writer.write(toString(task));
-                    writer.newLine();
-                }
+            CsvCodec codec = CODEC.get();
+            for (Task task : view.getTasks().values()) {
+                codec.write(task, writer);
+                writer.newLine();
             }
-            if (!epics.isEmpty()) {
-                for (Epic epic : epics.values()) {
-                    writer.write(toString(epic));
-                    writer.newLine();
-                }
+            for (Epic epic : view.getEpics().values()) {
+                codec.write(epic, writer);
+                writer.newLine();
             }
-            if (!subTasks.isEmpty()) {
-                for (SubTask sub : subTasks.values()) {
-                    writer.write(toString(sub));
-                    writer.newLine();
-                }
+            for (SubTask sub : view.getSubTasks().values()) {
+                codec.write(sub, writer);
+                writer.newLine();
             }
-            if (!historyManager.getHistory().isEmpty()) {
+            if (!history.isEmpty()) {
                 writer.newLine();
-                writer.write(historyToString(historyManager));
+                writer.write(history.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            if (durability != Durability.NONE) {
+                writer.flush();
+                out.getChannel().force(false);
             }
         } catch (IOException ex) {
             throw new ManagerSaveException("Произошла ошибка записи в файл");
@@ -93,52 +493,98 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     @Override
     public <T extends Task> T createTask(T task) {
         T created = super.createTask(task);
-        save();
+        persist(TaskJournal.CREATE, created.getId(), toString(created));
         return created;
     }
 
+    // весь пакет сохраняется одной записью
     @Override
-    public void removeTask(Task task) {
-        super.removeTask(task);
-        save();
+    public <T extends Task> List<T> createTasks(Collection<? extends T> tasks) {
+        List<T> created = super.createTasks(tasks);
+        if (restoring) {
+            return created;
+        }
+        if (journal != null) {
+            if (recordQueue != null) {
+                long revision = getRevision();
+                created.forEach(task -> recordQueue.submit(task.getId(),
+                        TaskJournal.CREATE + "," + toString(task), revision));
+            } else {
+                created.forEach(task -> journal.append(TaskJournal.CREATE, toString(task)));
+                journal.flush();
+            }
+            compactIfNeeded();
+        } else {
+            persistState(false);
+        }
+        return created;
     }
 
     @Override
-    public void removeSubTask(SubTask subTask) {
-        super.removeSubTask(subTask);
-        save();
+    public Task removeTaskById(int id) {
+        Task task = super.removeTaskById(id);
+        if (task != null) {
+            persist(TaskJournal.DELETE, id, String.valueOf(id));
+        }
+        return task;
     }
 
     @Override
-    public void removeEpic(Epic epic) {
-        super.removeEpic(epic);
-        save();
+    public SubTask removeSubTaskById(int id) {
+        SubTask subTask = super.removeSubTaskById(id);
+        if (subTask != null) {
+            persist(TaskJournal.DELETE, id, String.valueOf(id));
+        }
+        return subTask;
+    }
+
+    @Override
+    public Epic removeEpicById(int id) {
+        Epic epic = super.removeEpicById(id);
+        if (epic != null) {
+            persist(TaskJournal.DELETE, id, String.valueOf(id));
+        }
+        return epic;
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        if (task != null) {
+            persist(TaskJournal.UPDATE, task.getId(), toString(task));
+        }
+    }
+
+    @Override
+    public void setStatus(Task task, TaskStatus status) {
+        super.setStatus(task, status);
+        persist(TaskJournal.STATUS, task.getId(), task.getId() + "," + status);
     }
 
     @Override
     public Epic getEpicById(int id) {
         Epic epic = super.getEpicById(id);
-        save();
+        if (epic != null) {
+            saveHistory(epic);
+        }
         return epic;
     }
 
     @Override
     public Task getTaskById(int id) {
         Task task = super.getTaskById(id);
-        save();
+        if (task != null) {
+            saveHistory(task);
+        }
         return task;
     }
 
     @Override
     public SubTask getSubTaskById(int id) {
         SubTask subTask = super.getSubTaskById(id);
-        save();
+        if (subTask != null) {
+            saveHistory(subTask);
+        }
         return subTask;
     }
 
@@ -149,46 +595,189 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     }
 
     public static Task fromString(String value) {
-        String[] taskAttributes = value.split(",");
-        switch (TasksType.valueOf(taskAttributes[1])) {
-            case TASK:
-                Task task = new Task(taskAttributes);
-                return task;
-            case EPIC:
-                Epic epic = new Epic(taskAttributes);
-                return epic;
-            case SUBTASK:
-                SubTask subTask = new SubTask(taskAttributes);
-                return subTask;
-        }
-        return null;
+        return CODEC.get().decode(value);
     }
 
+    // поверх снимка проигрываются отложенный и текущий журналы; пересечения по времени не проверяются
     public static FileBackedTasksManager loadFromFile(File file) {
-        FileBackedTasksManager manager = new FileBackedTasksManager(file.getAbsolutePath());
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        return loadFromFile(file, Durability.NONE);
+    }
+
+    // формат снимка определяется по первым байтам файла, и менеджер продолжает писать в нём же
+    public static FileBackedTasksManager loadFromFile(File file, Durability durability) {
+        return loadFromFile(file, durability, Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTasksManager loadFromFile(File file, Durability durability,
+                                                      HistoryManager historyManager) {
+        File journalFile = journalFileFor(file.getAbsoluteFile());
+        boolean journaled = journalFile.exists() || TaskJournal.rotatedFileFor(journalFile).exists();
+        SnapshotFormat format = BinarySnapshot.isBinary(file) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        FileBackedTasksManager manager = new FileBackedTasksManager(file.getAbsolutePath(), false, journaled,
+                durability, format, historyManager);
+        manager.restoring = true;
+        try {
+            if (file.exists()) {
+                manager.readSnapshot(file);
+            }
+            if (journaled) {
+                manager.replayJournal(TaskJournal.readRecords(manager.journal.getRotatedFile()));
+                manager.replayJournal(TaskJournal.readRecords(manager.journal.getFile()));
+            }
+        } finally {
+            manager.restoring = false;
+        }
+        manager.rebuildTimeSlots();
+        manager.restoreIdCounter();
+        return manager;
+    }
+
+    @Override
+    boolean validateTimeIntersection(Task task) {
+        return !restoring && super.validateTimeIntersection(task);
+    }
+
+    // save() файл не перезаписывает, а заменяет, поэтому снимок с индексом можно отобразить в память
+    private void readSnapshot(File file) {
+        if (format == SnapshotFormat.BINARY && BinarySnapshot.isIndexed(file)) {
+            MappedSnapshot snapshot = MappedSnapshot.open(file);
+            restore(snapshot.tasks(), snapshot.getHistory());
+            return;
+        }
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshot.Result result = BinarySnapshot.read(file);
+            restore(result.getTasks(), result.getHistory());
+            return;
+        }
+        if (file.length() >= PARALLEL_LOAD_THRESHOLD) {
+            ParallelCsvReader.Result result = new ParallelCsvReader().read(file, FileBackedTasksManager::fromString);
+            restore(result.getTasks(), result.getHistory() == null || result.getHistory().isBlank()
+                    ? Collections.emptyList() : historyFromString(result.getHistory()));
+            return;
+        }
+        List<Task> loaded = new ArrayList<>();
+        List<Integer> history = Collections.emptyList();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             reader.readLine();
-            while (reader.ready()) {
-                String taskAsString = reader.readLine();
+            String taskAsString;
+            while ((taskAsString = readRecord(reader)) != null) {
                 if (!taskAsString.isBlank()) {
-                    manager.createTaskFromSource(fromString(taskAsString));
+                    loaded.add(fromString(taskAsString));
                 } else {
-                    List<Integer> historyIdList = historyFromString(reader.readLine());
-                    for (Integer id : historyIdList) {
-                        if (manager.getTasks().containsKey(id)) {
-                            manager.getTaskById(id);
-                        } else if (manager.getEpics().containsKey(id)) {
-                            manager.getEpicById(id);
-                        } else if (manager.getSubTasks().containsKey(id)) {
-                            manager.getSubTaskById(id);
-                        }
+                    String historyLine = reader.readLine();
+                    if (historyLine != null && !historyLine.isBlank()) {
+                        history = historyFromString(historyLine);
                     }
                 }
             }
-
         } catch (IOException ex) {
             ex.printStackTrace();
         }
-        return manager;
+        restore(loaded, history);
+    }
+
+    // значение в кавычках может содержать перевод строки: строки склеиваются, пока кавычки не закроются
+    private static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || CsvCodec.isComplete(line)) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (!CsvCodec.isComplete(record) && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+        }
+        return record.toString();
+    }
+
+    private void view(int id) {
+        if (tasks.containsKey(id)) {
+            getTaskById(id);
+        } else if (epics.containsKey(id)) {
+            getEpicById(id);
+        } else if (subTasks.containsKey(id)) {
+            getSubTaskById(id);
+        }
+    }
+
+    // создание существующей задачи - обновление, удаление отсутствующей - ничего; обрывок строки пропускается
+    private void replayJournal(List<String> records) {
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                replay(records.get(i));
+            } catch (RuntimeException ex) {
+                if (i != records.size() - 1) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private void replay(String record) {
+        String data = record.substring(2);
+        switch (record.charAt(0)) {
+            case TaskJournal.CREATE:
+            case TaskJournal.UPDATE:
+                Task task = fromString(data);
+                if (findTask(task.getId()) == null) {
+                    createTaskFromSource(task);
+                } else if (task.getType() == TasksType.EPIC) {
+                    // состав и время эпика выводятся из подзадач, из записи берутся только поля эпика
+                    Epic epic = findIn(epics, task.getId());
+                    epic.setName(task.getName());
+                    epic.setDescription(task.getDescription());
+                    updateTask(epic);
+                } else {
+                    updateTask(task);
+                }
+                break;
+            case TaskJournal.DELETE:
+                int id = Integer.parseInt(data);
+                if (tasks.containsKey(id)) {
+                    removeTaskById(id);
+                } else if (subTasks.containsKey(id)) {
+                    removeSubTaskById(id);
+                } else if (epics.containsKey(id)) {
+                    removeEpicById(id);
+                }
+                break;
+            case TaskJournal.STATUS:
+                String[] idAndStatus = data.split(",");
+                Task target = findTask(Integer.parseInt(idAndStatus[0]));
+                if (target != null) {
+                    setStatus(target, TaskStatus.valueOf(idAndStatus[1]));
+                }
+                break;
+            case TaskJournal.VIEW:
+                view(Integer.parseInt(data));
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    private Task findTask(int id) {
+        Task task = findIn(tasks, id);
+        if (task == null) {
+            task = findIn(epics, id);
+        }
+        if (task == null) {
+            task = findIn(subTasks, id);
+        }
+        return task;
+    }
+
+    // id загруженных задач взяты из файла, новые должны продолжать нумерацию после них
+    private void restoreIdCounter() {
+        int maxId = 0;
+        for (Integer id : tasks.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        for (Integer id : epics.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        for (Integer id : subTasks.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        idCounter.set(maxId);
     }
 }
@@ -3,6 +3,8 @@ package service.managers;
 import model.Task;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface HistoryManager {
     void add(Task task);
@@ -10,4 +12,29 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // реализации, которые могут обойти историю без копирования, переопределяют stream() и size()
+    default Stream<Task> stream() {
+        return getHistory().stream();
+    }
+
+    default int size() {
+        return getHistory().size();
+    }
+
+    // страница истории в порядке просмотров: limit записей, начиная с позиции offset
+    default List<Task> getHistory(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Смещение и размер страницы не могут быть отрицательными");
+        }
+        return stream().skip(offset).limit(limit).collect(Collectors.toList());
+    }
+
+    // последние limit записей в порядке просмотров: хвост истории без отдельного запроса размера
+    default List<Task> getRecentHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Размер страницы не может быть отрицательным");
+        }
+        return getHistory(Math.max(0, size() - limit), limit);
+    }
 }
@@ -5,26 +5,33 @@ import com.google.gson.reflect.TypeToken;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import service.managers.supportServices.Durability;
+import service.managers.supportServices.SnapshotFormat;
 import service.webAPI.KVTaskClient;
 import service.utilites.Managers;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class HttpTaskManager extends FileBackedTasksManager {
     private final KVTaskClient client;
     private final Gson gson;
 
     public HttpTaskManager(String urlOfServer) {
-        super(null);
-        client = new KVTaskClient(urlOfServer);
-        gson = Managers.getDefaultGson();
+        this(new KVTaskClient(urlOfServer));
+    }
+
+    public HttpTaskManager(String urlOfServer, HistoryManager historyManager) {
+        this(new KVTaskClient(urlOfServer), historyManager);
     }
 
     public HttpTaskManager(KVTaskClient client) {
-        super(null);
+        this(client, Managers.getDefaultHistory());
+    }
+
+    public HttpTaskManager(KVTaskClient client, HistoryManager historyManager) {
+        super(null, false, false, Durability.NONE, SnapshotFormat.CSV, historyManager);
         this.client = client;
         gson = Managers.getDefaultGson();
     }
@@ -37,45 +44,40 @@ public class HttpTaskManager extends FileBackedTasksManager {
         return gson;
     }
 
+    // состояние с сервера восстанавливается одним вызовом restore, без обратной записи на сервер
     public static HttpTaskManager loadFromServer(KVTaskClient client, Gson gson) {
-        HttpTaskManager loadedManager = new HttpTaskManager(client);
+        return loadFromServer(client, gson, Managers.getDefaultHistory());
+    }
+
+    public static HttpTaskManager loadFromServer(KVTaskClient client, Gson gson, HistoryManager historyManager) {
+        HttpTaskManager loadedManager = new HttpTaskManager(client, historyManager);
+        List<Task> loaded = new ArrayList<>();
         List<Epic> epicList = gson.fromJson(client.load("epics"), new TypeToken<ArrayList<Epic>>() {
         }.getType());
-        epicList = epicList == null ? Collections.emptyList() : epicList;
-        epicList.forEach(loadedManager::createTaskFromSource);
+        loaded.addAll(epicList == null ? Collections.emptyList() : epicList);
         List<SubTask> subTasks = gson.fromJson(client.load("subtasks"), new TypeToken<ArrayList<SubTask>>() {
         }.getType());
-        subTasks = subTasks == null ? Collections.emptyList() : subTasks;
-        subTasks.forEach(loadedManager::createTaskFromSource);
+        loaded.addAll(subTasks == null ? Collections.emptyList() : subTasks);
         List<Task> tasks = gson.fromJson(client.load("tasks"), new TypeToken<ArrayList<Task>>() {
         }.getType());
-        tasks = tasks == null ? Collections.emptyList() : tasks;
-        tasks.forEach(loadedManager::createTaskFromSource);
+        loaded.addAll(tasks == null ? Collections.emptyList() : tasks);
         List<Integer> historyIdList = gson.fromJson(client.load("history"), new TypeToken<ArrayList<Integer>>() {
         }.getType());
         historyIdList = historyIdList == null ? Collections.emptyList() : historyIdList;
 
-        for (Integer id : historyIdList) {
-            if (loadedManager.getTasks().containsKey(id)) {
-                loadedManager.getTaskById(id);
-            } else if (loadedManager.getEpics().containsKey(id)) {
-                loadedManager.getEpicById(id);
-            } else if (loadedManager.getSubTasks().containsKey(id)) {
-                loadedManager.getSubTaskById(id);
-            }
-        }
+        loadedManager.restore(loaded, historyIdList);
         return loadedManager;
     }
 
     @Override
-    public void save() {
-        String jsonTasks = gson.toJson(new ArrayList<>(getTasks().values()));
+    protected void saveState(TasksSnapshot view, List<Integer> history) {
+        String jsonTasks = gson.toJson(new ArrayList<>(view.getTasks().values()));
         client.put("tasks", jsonTasks);
-        String jsonEpics = gson.toJson(new ArrayList<>(getEpics().values()));
+        String jsonEpics = gson.toJson(new ArrayList<>(view.getEpics().values()));
         client.put("epics", jsonEpics);
-        String jsonSubtasks = gson.toJson(new ArrayList<>(getSubTasks().values()));
+        String jsonSubtasks = gson.toJson(new ArrayList<>(view.getSubTasks().values()));
         client.put("subtasks", jsonSubtasks);
-        String jsonHistory = gson.toJson(getHistory().stream().map(Task::getId).collect(Collectors.toList()));
+        String jsonHistory = gson.toJson(history);
         client.put("history", jsonHistory);
     }
 }
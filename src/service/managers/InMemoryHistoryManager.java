@@ -1,31 +1,57 @@
 package service.managers;
 
 import model.Task;
+import service.managers.supportServices.IntObjectHashMap;
 import service.managers.supportServices.Node;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+// История ограничена capacity записями: при переполнении вытесняется задача, которую смотрели раньше всех
 public class InMemoryHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 10;
+
     private final CustomLinkedList historyWatchList = new CustomLinkedList();
+    private final int capacity;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
 
     class CustomLinkedList {
         private Node head;
         private Node tail;
         private int size = 0;
 
-        private HashMap<Integer, Node> map = new HashMap<>();
+        private final IntObjectHashMap<Node> map = new IntObjectHashMap<>();
 
         public int size() {
             return this.size;
         }
 
+        public Node getHead() {
+            return head;
+        }
+
         public Node checkNodeInMap(int id) {
-            if (map.containsKey(id)) {
-                return map.get(id);
-            }
-            return null;
+            return map.get(id);
         }
 
         public void linkLast(Task element) {
@@ -66,6 +92,30 @@ public class InMemoryHistoryManager implements HistoryManager {
             return element;
         }
 
+        // обход узлов без копирования; поток нужно дочитать до следующего изменения истории
+        public Stream<Task> stream() {
+            Iterator<Task> iterator = new Iterator<>() {
+                private Node current = head;
+
+                @Override
+                public boolean hasNext() {
+                    return current != null;
+                }
+
+                @Override
+                public Task next() {
+                    if (current == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Task task = current.getData();
+                    current = current.getNext();
+                    return task;
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliterator(iterator, size,
+                    Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+
         public ArrayList<Task> getTasks() {
             Node curHead = head;
             ArrayList<Task> taskList = new ArrayList<>();
@@ -84,6 +134,9 @@ public class InMemoryHistoryManager implements HistoryManager {
             historyWatchList.removeNode(node);
         }
         historyWatchList.linkLast(task);
+        if (historyWatchList.size() > capacity) {
+            historyWatchList.removeNode(historyWatchList.getHead());
+        }
     }
 
     @Override
@@ -98,4 +151,14 @@ public class InMemoryHistoryManager implements HistoryManager {
     public List<Task> getHistory() {
         return historyWatchList.getTasks();
     }
+
+    @Override
+    public Stream<Task> stream() {
+        return historyWatchList.stream();
+    }
+
+    @Override
+    public int size() {
+        return historyWatchList.size();
+    }
 }
@@ -1,37 +1,78 @@
 package service.managers;
 
 import model.*;
+import service.managers.supportServices.IntObjectHashMap;
 import service.managers.supportServices.ManagerCreateException;
+import service.managers.supportServices.StatusIndex;
+import service.managers.supportServices.TimeSlotIndex;
 import service.utilites.Managers;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
-    HashMap<Integer, Task> tasks;
-    HashMap<Integer, Epic> epics;
-    HashMap<Integer, SubTask> subTasks;
-    TreeSet<Task> tasksSet;
+    Map<Integer, Task> tasks;
+    Map<Integer, Epic> epics;
+    Map<Integer, SubTask> subTasks;
+    NavigableSet<Task> tasksSet;
+    TimeSlotIndex timeSlots;
+    StatusIndex statusIndex;
     protected static AtomicInteger idCounter;
+    final AtomicLong revision = new AtomicLong();
+    private final AtomicReference<TasksSnapshot> snapshot = new AtomicReference<>(TasksSnapshot.EMPTY);
+    // id новых задач ещё не назначен, поэтому при проверке пакета ни один слот не пропускается
+    private static final int NO_ID = -1;
+    // порядок строится по зафиксированному времени: задача, изменённая на месте, не ломает дерево до updateTask
+    static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getCommittedStartTime,
+            Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())).thenComparing(Task::getId);
 
-    HistoryManager historyManager = Managers.getDefaultHistory();
+    HistoryManager historyManager;
 
     public InMemoryTaskManager() {
-        subTasks = new HashMap<>();
-        epics = new HashMap<>();
-        tasks = new HashMap<>();
+        this(Managers.getDefaultHistory());
+    }
+
+    // история задаётся снаружи: например, Managers.getDefaultHistory(capacity) с другим размером
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        subTasks = new IntObjectHashMap<>();
+        epics = new IntObjectHashMap<>();
+        tasks = new IntObjectHashMap<>();
         idCounter = new AtomicInteger(0);
-        tasksSet = new TreeSet<>(Comparator.comparing(Task::getStartTime,
-                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Task::getId));
+        tasksSet = new TreeSet<>(PRIORITY_ORDER);
+        timeSlots = new TimeSlotIndex();
+        statusIndex = new StatusIndex();
+    }
+
+    // доступ к хранилищам по int-ключу без упаковки; ConcurrentTaskManager переопределяет его для своих мап
+    protected <T extends Task> T findIn(Map<Integer, T> storage, int id) {
+        return ((IntObjectHashMap<T>) storage).get(id);
+    }
+
+    protected <T extends Task> void putIn(Map<Integer, T> storage, int id, T task) {
+        ((IntObjectHashMap<T>) storage).put(id, task);
+    }
+
+    protected <T extends Task> T removeFrom(Map<Integer, T> storage, int id) {
+        return ((IntObjectHashMap<T>) storage).remove(id);
     }
 
     @Override
-    public HashMap<Integer, SubTask> getAllEpicSubTasks(Epic epic) {
-        return epic.getEpicSubs();
+    public Map<Integer, SubTask> getAllEpicSubTasks(Epic epic) {
+        return Collections.unmodifiableMap(epic.getEpicSubs());
     }
 
     @Override
@@ -41,66 +82,169 @@ public class InMemoryTaskManager implements TaskManager {
         } else {
             switch (task.getType()) {
                 case TASK:
-                    Task taskFromMap = tasks.get(task.getId());
-                    if (!taskFromMap.equals(task)) {
-                        tasks.put(task.getId(), task);
+                    Task taskFromMap = findIn(tasks, task.getId());
+                    updateTimeSlot(task);
+                    if (isChanged(taskFromMap, task)) {
+                        putIn(tasks, task.getId(), task);
+                        tasksSet.remove(taskFromMap);
+                        task.markCommitted();
+                        tasksSet.add(task);
+                        statusIndex.update(task);
                     } else {
                         System.out.println("Задачи идентичны, нечего обновлять");
                     }
                     break;
                 case SUBTASK:
                     SubTask subTask = (SubTask) task;
-                    SubTask subTaskFromMap = subTasks.get(subTask.getId());
-                    if (!subTaskFromMap.equals(subTask)) {
-                        subTasks.put(subTask.getId(), subTask);
-                        updateTask(epics.get(subTask.getEpicId()));
+                    SubTask subTaskFromMap = findIn(subTasks, subTask.getId());
+                    updateTimeSlot(subTask);
+                    if (isChanged(subTaskFromMap, subTask)) {
+                        putIn(subTasks, subTask.getId(), subTask);
+                        tasksSet.remove(subTaskFromMap);
+                        subTask.markCommitted();
+                        tasksSet.add(subTask);
+                        statusIndex.update(subTask);
                     } else {
                         System.out.println("Подзадачи идентичны, нечего обновлять");
                     }
+                    putSubTaskToEpic(subTask);
                     break;
                 case EPIC:
                     Epic epic = (Epic) task;
                     tasksSet.remove(epic);
-                    if (epic.getEpicSubs().isEmpty() || subTasks.isEmpty()) {
-                        epic.setStatus(TaskStatus.NEW);
-                    } else {
-                        int doneCounter = 0;
-                        int newCounter = 0;
-                        for (SubTask sub : epic.getEpicSubs().values()) {
-                            if (sub.getStatus() == TaskStatus.DONE) {
-                                doneCounter++;
-                            } else if (sub.getStatus() == TaskStatus.NEW) {
-                                newCounter++;
-                            }
-                        }
-                        if (doneCounter == epic.getEpicSubs().size()) {
-                            epic.setStatus(TaskStatus.DONE);
-                        } else if (newCounter == epic.getEpicSubs().size()) {
-                            epic.setStatus(TaskStatus.NEW);
-                        } else {
-                            epic.setStatus(TaskStatus.IN_PROGRESS);
-                        }
-                    }
+                    epic.updateStatus();
                     epic.initilizeTime();
+                    epic.markCommitted();
                     tasksSet.add(epic);
-                    epics.put(epic.getId(), epic);
+                    putIn(epics, epic.getId(), epic);
+                    statusIndex.update(epic);
             }
+            revision.incrementAndGet();
+            publishTask(task);
         }
     }
 
-    private boolean validateTimeIntersection(Task task) {
-        if (task.getStartTime() != null) {
-            return getPrioritizedTasks()
-                    .stream()
-                    .filter(task1 -> task1.getStartTime() != null)
-                    .anyMatch(task1 -> task1.getEndTime().isAfter(task.getStartTime())
-                            && task1.getEndTime().isBefore(task.getEndTime()));
+    // время эпика вычисляется из его подзадач, поэтому эпики слотов не занимают
+    boolean validateTimeIntersection(Task task) {
+        if (task.getType() != TasksType.EPIC && task.getStartTime() != null) {
+            return timeSlots.hasIntersection(task);
         }
         return false;
     }
 
-    public TreeSet<Task> getPrioritizedTasks() {
-        return tasksSet;
+    // тот же объект, изменённый на месте, проверяется по версии; другой объект - по содержимому
+    private boolean isChanged(Task taskFromMap, Task task) {
+        if (taskFromMap == task) {
+            return task.isModified();
+        }
+        return !taskFromMap.equals(task)
+                || !Objects.equals(taskFromMap.getStartTime(), task.getStartTime())
+                || !Objects.equals(taskFromMap.getDuration(), task.getDuration());
+    }
+
+    // эпик пересчитывает статус и время при изменении подзадачи, поэтому его позиция в tasksSet обновляется
+    private void putSubTaskToEpic(SubTask subTask) {
+        Epic epic = findIn(epics, subTask.getEpicId());
+        if (epic != null) {
+            tasksSet.remove(epic);
+            epic.putSubTask(subTask);
+            epic.markCommitted();
+            tasksSet.add(epic);
+            statusIndex.update(epic);
+        }
+    }
+
+    private void removeSubTaskFromEpic(SubTask subTask) {
+        Epic epic = findIn(epics, subTask.getEpicId());
+        if (epic != null) {
+            tasksSet.remove(epic);
+            epic.removeSubTask(subTask.getId());
+            epic.markCommitted();
+            tasksSet.add(epic);
+            statusIndex.update(epic);
+        }
+    }
+
+    // индекс слотов заново по текущим задачам и подзадачам
+    void rebuildTimeSlots() {
+        timeSlots.clear();
+        tasks.values().forEach(timeSlots::add);
+        subTasks.values().forEach(timeSlots::add);
+    }
+
+    private void updateTimeSlot(Task task) {
+        if (validateTimeIntersection(task)) {
+            throw new ManagerCreateException("Задачи пересекаются по времени");
+        }
+        timeSlots.add(task);
+    }
+
+    @Override
+    public NavigableSet<Task> getPrioritizedTasks() {
+        return Collections.unmodifiableNavigableSet(tasksSet);
+    }
+
+    // задачи, начинающиеся в [from, to); null с любой стороны снимает ограничение.
+    // Задачи без времени стоят в конце порядка и в окно не попадают; from позже to - IllegalArgumentException
+    @Override
+    public NavigableSet<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Task> timed = tasksSet.subSet(probe(from == null ? LocalDateTime.MIN : from), true,
+                probe(to == null ? LocalDateTime.MAX : to), false);
+        return Collections.unmodifiableNavigableSet(timed);
+    }
+
+    // граница для навигации по tasksSet: при равном времени начала стоит раньше любой задачи
+    private static Task probe(LocalDateTime startTime) {
+        Task probe = new Task(null, null);
+        probe.setId(Integer.MIN_VALUE);
+        probe.setStartTime(startTime);
+        probe.markCommitted();
+        return probe;
+    }
+
+    @Override
+    public long getRevision() {
+        return revision.get();
+    }
+
+    // срез уже собран последним изменением, поэтому чтение - одна ссылка, без копирования и блокировок
+    @Override
+    public TasksSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // Следующий срез после изменения: в него попадают копии задач с этими id, удалённые id из него убираются.
+    // Вызывается в конце изменения, в ConcurrentTaskManager - ещё под полосой, поэтому копируемые задачи
+    // в это время никто не меняет. Срезы писателей разных полос сливаются через compareAndSet:
+    // при повторе те же копии накладываются на более новый срез
+    void publish(int... ids) {
+        Task[] taskCopies = new Task[ids.length];
+        Epic[] epicCopies = new Epic[ids.length];
+        SubTask[] subTaskCopies = new SubTask[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Task task = findIn(tasks, ids[i]);
+            Epic epic = findIn(epics, ids[i]);
+            SubTask subTask = findIn(subTasks, ids[i]);
+            taskCopies[i] = task == null ? null : task.copy();
+            epicCopies[i] = epic == null ? null : epic.copy();
+            subTaskCopies[i] = subTask == null ? null : subTask.copy();
+        }
+        TasksSnapshot current;
+        TasksSnapshot next;
+        do {
+            current = snapshot.get();
+            next = current.with(Math.max(current.getRevision(), revision.get()), ids,
+                    taskCopies, epicCopies, subTaskCopies);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    // подзадача меняет статус и время своего эпика, поэтому эпик попадает в срез вместе с ней
+    private void publishTask(Task task) {
+        if (task.getType() == TasksType.SUBTASK) {
+            publish(task.getId(), ((SubTask) task).getEpicId());
+        } else {
+            publish(task.getId());
+        }
     }
 
     @Override
@@ -108,31 +252,49 @@ public class InMemoryTaskManager implements TaskManager {
         if (validateTimeIntersection(task)) {
             throw new ManagerCreateException("Задачи пересекаются по времени");
         }
-        switch (task.getType()) {
-            case TASK:
-                task.setId(idCounter.incrementAndGet());
-                tasks.put(task.getId(), task);
-                tasksSet.add(task);
-                return task;
-            case SUBTASK:
-                SubTask subTask = (SubTask) task;
-                subTask.setId(idCounter.incrementAndGet());
-                subTasks.put(subTask.getId(), subTask);
-                tasksSet.add(subTask);
-                if (epics.containsKey(subTask.getEpicId())) {
-                    Epic epic = epics.get(subTask.getEpicId());
-                    epic.getEpicSubs().put(subTask.getId(), subTask);
-                    epic.initilizeTime();
-                }
-                return (T) subTask;
-            case EPIC:
-                Epic epic = (Epic) task;
-                epic.setId(idCounter.incrementAndGet());
-                epics.put(epic.getId(), epic);
-                tasksSet.add(epic);
-                return (T) epic;
-            default:
-                return null;
+        task.setId(idCounter.incrementAndGet());
+        return putTask(task);
+    }
+
+    // пакет проверяется целиком до изменений: либо создаются все задачи, либо ни одной.
+    // В срез пакет попадает одним шагом, так что читатели не видят его наполовину
+    @Override
+    public <T extends Task> List<T> createTasks(Collection<? extends T> batch) {
+        List<T> created = new ArrayList<>(batch);
+        validateBatchTimeIntersection(created);
+        int id = idCounter.getAndAdd(created.size());
+        int[] ids = new int[created.size() * 2];
+        int count = 0;
+        for (T task : created) {
+            task.setId(++id);
+            storeTask(task);
+            ids[count++] = task.getId();
+            if (task.getType() == TasksType.SUBTASK) {
+                ids[count++] = ((SubTask) task).getEpicId();
+            }
+        }
+        publish(Arrays.copyOf(ids, count));
+        return created;
+    }
+
+    // задачи пакета сортируются один раз по началу: пересекаться внутри пакета могут только соседние,
+    // а с уже созданными каждая сверяется по индексу слотов
+    void validateBatchTimeIntersection(List<? extends Task> batch) {
+        List<Task> timed = batch.stream()
+                .filter(task -> task.getType() != TasksType.EPIC && task.getStartTime() != null)
+                .sorted(Comparator.comparing(Task::getStartTime))
+                .collect(Collectors.toList());
+        LocalDateTime previousEnd = null;
+        for (Task task : timed) {
+            LocalDateTime end = task.getEndTime();
+            if (end == null || !end.isAfter(task.getStartTime())) {
+                continue;
+            }
+            if ((previousEnd != null && previousEnd.isAfter(task.getStartTime()))
+                    || timeSlots.hasIntersection(task.getStartTime(), end, NO_ID)) {
+                throw new ManagerCreateException("Задачи пересекаются по времени");
+            }
+            previousEnd = end;
         }
     }
 
@@ -140,78 +302,195 @@ public class InMemoryTaskManager implements TaskManager {
         if (validateTimeIntersection(task)) {
             throw new ManagerCreateException("Задачи пересекаются по времени");
         }
+        return putTask(task);
+    }
+
+    // Массовое восстановление сохранённого состояния в пустой менеджер. Данные считаются согласованными:
+    // пересечения по времени не проверяются, подзадачи сначала привязываются к эпикам, и только потом
+    // каждая задача один раз попадает в индексы. История заполняется напрямую, без getById
+    void restore(Collection<? extends Task> loaded, Collection<Integer> historyIds) {
+        List<SubTask> loadedSubTasks = new ArrayList<>();
+        int[] ids = new int[loaded.size()];
+        int count = 0;
+        for (Task task : loaded) {
+            ids[count++] = task.getId();
+            switch (task.getType()) {
+                case TASK:
+                    putIn(tasks, task.getId(), task);
+                    break;
+                case EPIC:
+                    putIn(epics, task.getId(), (Epic) task);
+                    break;
+                case SUBTASK:
+                    putIn(subTasks, task.getId(), (SubTask) task);
+                    loadedSubTasks.add((SubTask) task);
+                    break;
+            }
+        }
+        for (SubTask subTask : loadedSubTasks) {
+            Epic epic = findIn(epics, subTask.getEpicId());
+            if (epic != null) {
+                epic.putSubTask(subTask);
+            }
+        }
+        int maxId = 0;
+        for (Map<Integer, ? extends Task> source : List.of(tasks, epics, subTasks)) {
+            for (Task task : source.values()) {
+                task.markCommitted();
+                tasksSet.add(task);
+                statusIndex.update(task);
+                if (task.getType() != TasksType.EPIC) {
+                    timeSlots.add(task);
+                }
+                maxId = Math.max(maxId, task.getId());
+            }
+        }
+        for (Integer id : historyIds) {
+            Task task = findIn(tasks, id);
+            if (task == null) {
+                task = findIn(epics, id);
+            }
+            if (task == null) {
+                task = findIn(subTasks, id);
+            }
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+        idCounter.set(maxId);
+        revision.incrementAndGet();
+        publish(Arrays.copyOf(ids, count));
+    }
+
+    <T extends Task> T putTask(T task) {
+        T stored = storeTask(task);
+        publishTask(task);
+        return stored;
+    }
+
+    private <T extends Task> T storeTask(T task) {
+        revision.incrementAndGet();
+        task.markCommitted();
         switch (task.getType()) {
             case TASK:
-                tasks.put(task.getId(), task);
+                putIn(tasks, task.getId(), task);
                 tasksSet.add(task);
+                timeSlots.add(task);
+                statusIndex.update(task);
                 return task;
             case SUBTASK:
                 SubTask subTask = (SubTask) task;
-                subTasks.put(subTask.getId(), subTask);
+                putIn(subTasks, subTask.getId(), subTask);
                 tasksSet.add(subTask);
-                if (epics.containsKey(subTask.getEpicId())) {
-                    Epic epic = epics.get(subTask.getEpicId());
-                    epic.getEpicSubs().put(subTask.getId(), subTask);
-                    epic.initilizeTime();
-                }
+                timeSlots.add(subTask);
+                statusIndex.update(subTask);
+                putSubTaskToEpic(subTask);
                 return (T) subTask;
             case EPIC:
                 Epic epic = (Epic) task;
-                epics.put(epic.getId(), epic);
+                putIn(epics, epic.getId(), epic);
                 tasksSet.add(epic);
+                statusIndex.update(epic);
                 return (T) epic;
             default:
                 return null;
         }
     }
 
+    // удаление переданного объекта: удаляется, только если под его id хранится равная задача
     @Override
     public void removeTask(Task task) {
-        if (tasks.containsValue(task)) {
-            tasks.remove(task.getId());
-            historyManager.remove(task.getId());
-            tasksSet.remove(task);
-            idCounter.decrementAndGet();
+        if (task != null && task.equals(findIn(tasks, task.getId()))) {
+            removeTaskById(task.getId());
         }
     }
 
     @Override
     public void removeSubTask(SubTask subTask) {
-        if (subTasks.containsValue(subTask)) {
-            subTasks.remove(subTask.getId());
-            historyManager.remove(subTask.getId());
-            Epic epic = epics.get(subTask.getEpicId());
-            epic.getEpicSubs().remove(subTask.getId());
-            tasksSet.remove(subTask);
-            idCounter.decrementAndGet();
-            updateTask(epic);
+        if (subTask != null && subTask.equals(findIn(subTasks, subTask.getId()))) {
+            removeSubTaskById(subTask.getId());
         }
     }
 
     @Override
     public void removeEpic(Epic epic) {
-        if (epics.containsValue(epic)) {
-            epic.getEpicSubs().values()
-                    .stream()
-                    .collect(Collectors.toList())
-                    .forEach(subTask -> removeSubTask(subTask));
+        if (epic != null && epic.equals(findIn(epics, epic.getId()))) {
+            removeEpicById(epic.getId());
+        }
+    }
 
-            historyManager.remove(epic.getId());
-            epics.remove(epic.getId());
+    @Override
+    public Task removeTaskById(int id) {
+        Task task = removeFrom(tasks, id);
+        if (task != null) {
+            historyManager.remove(id);
+            tasksSet.remove(task);
+            timeSlots.remove(id);
+            statusIndex.remove(id);
+            idCounter.decrementAndGet();
+            revision.incrementAndGet();
+            publish(id);
+        }
+        return task;
+    }
+
+    @Override
+    public SubTask removeSubTaskById(int id) {
+        SubTask subTask = detachSubTask(id);
+        if (subTask != null) {
+            removeSubTaskFromEpic(subTask);
+            publish(id, subTask.getEpicId());
+        }
+        return subTask;
+    }
+
+    @Override
+    public Epic removeEpicById(int id) {
+        Epic epic = removeFrom(epics, id);
+        if (epic != null) {
+            // подзадачи уходят вместе с эпиком, поэтому пересчитывать эпик после каждой не нужно
+            List<SubTask> epicSubs = new ArrayList<>(epic.getEpicSubs().values());
+            int[] ids = new int[epicSubs.size() + 1];
+            for (int i = 0; i < epicSubs.size(); i++) {
+                ids[i] = epicSubs.get(i).getId();
+                detachSubTask(ids[i]);
+            }
+            historyManager.remove(id);
             tasksSet.remove(epic);
+            statusIndex.remove(id);
+            idCounter.decrementAndGet();
+            revision.incrementAndGet();
+            ids[epicSubs.size()] = id;
+            publish(ids);
+        }
+        return epic;
+    }
+
+    private SubTask detachSubTask(int id) {
+        SubTask subTask = removeFrom(subTasks, id);
+        if (subTask != null) {
+            historyManager.remove(id);
+            tasksSet.remove(subTask);
+            timeSlots.remove(id);
+            statusIndex.remove(id);
             idCounter.decrementAndGet();
+            revision.incrementAndGet();
         }
+        return subTask;
     }
 
     @Override
     public void setStatus(Task task, TaskStatus status) {
         tasksSet.remove(task);
         task.setStatus(status);
+        task.markCommitted();
         tasksSet.add(task);
+        statusIndex.update(task);
         if (task.getType() == TasksType.SUBTASK) {
-            SubTask subTask = (SubTask) task;
-            updateTask(epics.get(subTask.getEpicId()));
+            putSubTaskToEpic((SubTask) task);
         }
+        revision.incrementAndGet();
+        publishTask(task);
     }
 
 
@@ -222,7 +501,7 @@ public class InMemoryTaskManager implements TaskManager {
                     .stream()
                     .collect(Collectors.toList())
                     .stream()
-                    .forEach(task -> removeTask(task));
+                    .forEach(task -> removeTaskById(task.getId()));
         }
     }
 
@@ -233,7 +512,7 @@ public class InMemoryTaskManager implements TaskManager {
                     .stream()
                     .collect(Collectors.toList())
                     .stream()
-                    .forEach(epic -> removeEpic(epic));
+                    .forEach(epic -> removeEpicById(epic.getId()));
         }
     }
 
@@ -241,22 +520,27 @@ public class InMemoryTaskManager implements TaskManager {
     public void clearAllSubTasks() {
         if (!subTasks.isEmpty()) {
             epics.values().stream()
-                    .forEach(epic -> epic.getEpicSubs().values().stream()
+                    .forEach(epic -> getAllEpicSubTasks(epic).values().stream()
                             .collect(Collectors.toList())
-                            .forEach(subTask -> removeSubTask(subTask)));
+                            .forEach(subTask -> removeSubTaskById(subTask.getId())));
         }
     }
 
+    @Override
+    public List<Task> getByStatus(TaskStatus status, TasksType type) {
+        return statusIndex.get(status, type);
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
+    // одно обращение к мапе: между containsKey и get задачу мог удалить другой поток
     @Override
     public Epic getEpicById(int id) {
-        Epic epic = null;
-        if (epics.containsKey(id)) {
-            epic = epics.get(id);
+        Epic epic = findIn(epics, id);
+        if (epic != null) {
             historyManager.add(epic);
         }
         return epic;
@@ -264,9 +548,8 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Task getTaskById(int id) {
-        Task task = null;
-        if (tasks.containsKey(id)) {
-            task = tasks.get(id);
+        Task task = findIn(tasks, id);
+        if (task != null) {
             historyManager.add(task);
         }
         return task;
@@ -274,27 +557,26 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public SubTask getSubTaskById(int id) {
-        SubTask subTask = null;
-        if (subTasks.containsKey(id)) {
-            subTask = subTasks.get(id);
+        SubTask subTask = findIn(subTasks, id);
+        if (subTask != null) {
             historyManager.add(subTask);
         }
         return subTask;
     }
 
     @Override
-    public HashMap<Integer, Task> getTasks() {
-        return tasks;
+    public Map<Integer, Task> getTasks() {
+        return Collections.unmodifiableMap(tasks);
     }
 
     @Override
-    public HashMap<Integer, Epic> getEpics() {
-        return epics;
+    public Map<Integer, Epic> getEpics() {
+        return Collections.unmodifiableMap(epics);
     }
 
     @Override
-    public HashMap<Integer, SubTask> getSubTasks() {
-        return subTasks;
+    public Map<Integer, SubTask> getSubTasks() {
+        return Collections.unmodifiableMap(subTasks);
     }
 
     public HistoryManager getHistoryManager() {
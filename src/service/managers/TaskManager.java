@@ -4,13 +4,16 @@ import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TasksType;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.Map;
+import java.util.NavigableSet;
 
 public interface TaskManager {
-    HashMap<Integer, SubTask> getAllEpicSubTasks(Epic epic);
+    Map<Integer, SubTask> getAllEpicSubTasks(Epic epic);
 
     void removeTask(Task task);
 
@@ -18,18 +21,28 @@ public interface TaskManager {
 
     void removeEpic(Epic epic);
 
+    Task removeTaskById(int id);
+
+    SubTask removeSubTaskById(int id);
+
+    Epic removeEpicById(int id);
+
     void updateTask(Task task);
 
     void setStatus(Task task, TaskStatus status);
 
     <T extends Task> T createTask(T task);
 
+    <T extends Task> List<T> createTasks(Collection<? extends T> tasks);
+
     void clearAllTasks();
 
     void clearAllEpics();
 
     void clearAllSubTasks();
 
+    List<Task> getByStatus(TaskStatus status, TasksType type);
+
     List<Task> getHistory();
 
     Epic getEpicById(int id);
@@ -38,11 +51,19 @@ public interface TaskManager {
 
     SubTask getSubTaskById(int id);
 
-    HashMap<Integer, Task> getTasks();
+    Map<Integer, Task> getTasks();
 
-    HashMap<Integer, Epic> getEpics();
+    Map<Integer, Epic> getEpics();
+
+    Map<Integer, SubTask> getSubTasks();
 
-    HashMap<Integer, SubTask> getSubTasks();
     HistoryManager getHistoryManager();
-    TreeSet<Task> getPrioritizedTasks();
+
+    NavigableSet<Task> getPrioritizedTasks();
+
+    NavigableSet<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    long getRevision();
+
+    TasksSnapshot getSnapshot();
 }
@@ -0,0 +1,80 @@
+package service.managers;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import service.managers.supportServices.PersistentIntMap;
+import service.managers.supportServices.PersistentSortedList;
+
+import java.util.List;
+import java.util.Map;
+
+// Неизменяемый срез состояния на ревизии revision: копии задач, которые менеджер обновляет по одной
+public class TasksSnapshot {
+    static final TasksSnapshot EMPTY = new TasksSnapshot(0, PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), new PersistentSortedList<>(InMemoryTaskManager.PRIORITY_ORDER));
+
+    private final long revision;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<SubTask> subTasks;
+    private final PersistentSortedList<Task> prioritizedTasks;
+
+    private TasksSnapshot(long revision, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                          PersistentIntMap<SubTask> subTasks, PersistentSortedList<Task> prioritizedTasks) {
+        this.revision = revision;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subTasks = subTasks;
+        this.prioritizedTasks = prioritizedTasks;
+    }
+
+    // следующий срез: для каждого id из ids копия заменяет задачу этого типа, null убирает её из среза
+    TasksSnapshot with(long revision, int[] ids, Task[] taskCopies, Epic[] epicCopies, SubTask[] subTaskCopies) {
+        PersistentIntMap<Task> nextTasks = tasks;
+        PersistentIntMap<Epic> nextEpics = epics;
+        PersistentIntMap<SubTask> nextSubTasks = subTasks;
+        PersistentSortedList<Task> nextPrioritized = prioritizedTasks;
+        for (int i = 0; i < ids.length; i++) {
+            nextPrioritized = replace(nextPrioritized, nextTasks.get(ids[i]), taskCopies[i]);
+            nextPrioritized = replace(nextPrioritized, nextEpics.get(ids[i]), epicCopies[i]);
+            nextPrioritized = replace(nextPrioritized, nextSubTasks.get(ids[i]), subTaskCopies[i]);
+            nextTasks = apply(nextTasks, ids[i], taskCopies[i]);
+            nextEpics = apply(nextEpics, ids[i], epicCopies[i]);
+            nextSubTasks = apply(nextSubTasks, ids[i], subTaskCopies[i]);
+        }
+        return new TasksSnapshot(revision, nextTasks, nextEpics, nextSubTasks, nextPrioritized);
+    }
+
+    private static <T extends Task> PersistentIntMap<T> apply(PersistentIntMap<T> map, int id, T copy) {
+        return copy == null ? map.minus(id) : map.plus(id, copy);
+    }
+
+    // старая копия ищется по своему времени начала, поэтому сначала убирается она, потом добавляется новая
+    private static PersistentSortedList<Task> replace(PersistentSortedList<Task> list, Task previous, Task copy) {
+        if (previous != null) {
+            list = list.minus(previous);
+        }
+        return copy == null ? list : list.plus(copy);
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public Map<Integer, Task> getTasks() {
+        return tasks;
+    }
+
+    public Map<Integer, Epic> getEpics() {
+        return epics;
+    }
+
+    public Map<Integer, SubTask> getSubTasks() {
+        return subTasks;
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedTasks;
+    }
+}
@@ -0,0 +1,324 @@
+package service.managers.supportServices;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TasksType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Двоичный снимок задач. Формат (все числа big-endian):
+//   int MAGIC, byte VERSION, int число задач;
+//   на задачу: byte (тип << 4 | статус), int id, [int epicId у подзадачи], строка имени, строка описания,
+//   int начало в минутах от эпохи UTC (NO_TIME, если времени нет), [int длительность в минутах];
+//   строка - int длина в байтах UTF-8 (-1 для null) и сами байты;
+//   затем int длина истории и id задач истории;
+//   в версии 2 дальше индекс: на задачу по возрастанию id запись фиксированной ширины (int id, long смещение),
+//   и в самом конце long смещение истории и снова MAGIC. По индексу MappedSnapshot находит задачу,
+//   не разбирая остальные; последовательное чтение до индекса просто не доходит. Версия 1 - без индекса.
+// Конец задачи не хранится - он выводится из длительности, время эпика - из подзадач.
+// Запись и чтение идут через FileChannel и один прямой буфер.
+public class BinarySnapshot {
+    public static final int MAGIC = 0x4B414E42;
+    static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_INDEX = 1;
+    static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int NO_TIME = Integer.MIN_VALUE;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TasksType[] TYPES = TasksType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // откуда читается задача: поток через буфер или отображённый в память файл
+    interface Source {
+        byte get() throws IOException;
+
+        int getInt() throws IOException;
+
+        String getString() throws IOException;
+    }
+
+    public static class Result {
+        private final List<Task> tasks;
+        private final List<Integer> history;
+
+        private Result(List<Task> tasks, List<Integer> history) {
+            this.tasks = tasks;
+            this.history = history;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public List<Integer> getHistory() {
+            return history;
+        }
+    }
+
+    // является ли файл двоичным снимком: по первым байтам
+    public static boolean isBinary(File file) {
+        return version(file) > 0;
+    }
+
+    public static boolean isIndexed(File file) {
+        return version(file) > VERSION_WITHOUT_INDEX;
+    }
+
+    // версия двоичного снимка или 0, если файл не двоичный снимок
+    public static int version(File file) {
+        if (file.length() < HEADER_SIZE) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 1);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                continue;
+            }
+            return buffer.getInt(0) == MAGIC ? buffer.get(Integer.BYTES) : 0;
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    public static void write(File file, Collection<? extends Collection<? extends Task>> groups,
+                             List<Integer> history, boolean force, boolean indexed) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            int count = 0;
+            for (Collection<? extends Task> group : groups) {
+                count += group.size();
+            }
+            out.ensure(HEADER_SIZE);
+            out.buffer.putInt(MAGIC).put(indexed ? VERSION : VERSION_WITHOUT_INDEX).putInt(count);
+            // id в старших битах, номер записи в младших: сортировка даёт индекс по возрастанию id
+            long[] order = indexed ? new long[count] : null;
+            long[] offsets = indexed ? new long[count] : null;
+            int index = 0;
+            for (Collection<? extends Task> group : groups) {
+                for (Task task : group) {
+                    if (indexed) {
+                        order[index] = (long) task.getId() << 32 | index;
+                        offsets[index++] = out.position();
+                    }
+                    writeTask(out, task);
+                }
+            }
+            long historyOffset = out.position();
+            out.ensure(Integer.BYTES);
+            out.buffer.putInt(history.size());
+            for (Integer id : history) {
+                out.ensure(Integer.BYTES);
+                out.buffer.putInt(id);
+            }
+            if (indexed) {
+                Arrays.sort(order);
+                for (long entry : order) {
+                    out.ensure(INDEX_ENTRY_SIZE);
+                    out.buffer.putInt((int) (entry >>> 32)).putLong(offsets[(int) entry]);
+                }
+                out.ensure(FOOTER_SIZE);
+                out.buffer.putLong(historyOffset).putInt(MAGIC);
+            }
+            out.drain();
+            if (force) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в файл");
+        }
+    }
+
+    private static void writeTask(Output out, Task task) throws IOException {
+        out.ensure(1 + 2 * Integer.BYTES);
+        out.buffer.put((byte) (task.getType().ordinal() << 4 | task.getStatus().ordinal()));
+        out.buffer.putInt(task.getId());
+        if (task.getType() == TasksType.SUBTASK) {
+            out.buffer.putInt(((SubTask) task).getEpicId());
+        }
+        out.putString(task.getName());
+        out.putString(task.getDescription());
+        out.ensure(2 * Integer.BYTES);
+        if (task.getType() == TasksType.EPIC || task.getStartTime() == null) {
+            out.buffer.putInt(NO_TIME);
+        } else {
+            out.buffer.putInt(Math.toIntExact(task.getStartTime().toEpochSecond(ZoneOffset.UTC) / 60));
+            out.buffer.putInt(Math.toIntExact(task.getDuration().toMinutes()));
+        }
+    }
+
+    public static Result read(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является двоичным снимком");
+            }
+            checkVersion(in.get());
+            int count = in.getInt();
+            List<Task> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(readTask(in));
+            }
+            int historySize = in.getInt();
+            List<Integer> history = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                history.add(in.getInt());
+            }
+            return new Result(tasks, history);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения файла");
+        }
+    }
+
+    // версия 1 отличается только отсутствием индекса
+    static void checkVersion(byte version) {
+        if (version < 1 || version > VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия снимка: " + version);
+        }
+    }
+
+    static Task readTask(Source in) throws IOException {
+        int typeAndStatus = in.get();
+        TasksType type = TYPES[typeAndStatus >> 4];
+        TaskStatus status = STATUSES[typeAndStatus & 0x0F];
+        int id = in.getInt();
+        int epicId = type == TasksType.SUBTASK ? in.getInt() : 0;
+        String name = in.getString();
+        String description = in.getString();
+        Task task;
+        switch (type) {
+            case EPIC:
+                task = new Epic(name, description);
+                break;
+            case SUBTASK:
+                task = new SubTask(name, description, epicId);
+                break;
+            default:
+                task = new Task(name, description);
+        }
+        task.setId(id);
+        task.setStatus(status);
+        int start = in.getInt();
+        if (start != NO_TIME) {
+            task.setStartTime(LocalDateTime.ofEpochSecond(start * 60L, 0, ZoneOffset.UTC));
+            task.setDuration(Duration.ofMinutes(in.getInt()));
+        }
+        return task;
+    }
+
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long written;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private long position() {
+            return written + buffer.position();
+        }
+
+        // строка длиннее буфера пишется частями
+        private void putString(String value) throws IOException {
+            ensure(Integer.BYTES);
+            if (value == null) {
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+    }
+
+    private static class Input implements Source {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new ManagerSaveException("Двоичный снимок обрезан");
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public byte get() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        @Override
+        public int getInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        @Override
+        public String getString() throws IOException {
+            require(Integer.BYTES);
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int chunk = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
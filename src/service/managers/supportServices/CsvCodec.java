@@ -0,0 +1,262 @@
+package service.managers.supportServices;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TasksType;
+import service.utilites.Managers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Кодек строк снимка и журнала. Поле с запятой, кавычкой или переводом строки пишется в кавычках,
+// кавычка внутри удваивается (RFC 4180). Строка собирается в переиспользуемом StringBuilder, а разбирается
+// по индексам полей, без split: строки создаются только для имени и описания, числа и время читаются
+// прямо из символов. Время в прежнем виде dd.MM.yyyy HH:mm пишется и читается по фиксированным позициям
+// цифр, без DateTimeFormatter, поэтому старые файлы читаются как раньше.
+// Экземпляр хранит буферы и не потокобезопасен: каждому потоку нужен свой.
+public class CsvCodec {
+    private static final int MAX_FIELDS = 9;
+    private static final int TIME_LENGTH = 16;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private final boolean[] quoted = new boolean[MAX_FIELDS];
+    private CharSequence source;
+    private int count;
+
+    public String encode(Task task) {
+        fill(task);
+        return line.toString();
+    }
+
+    // строка пишется прямо из буфера, без промежуточной String
+    public void write(Task task, Writer writer) throws IOException {
+        fill(task);
+        writer.append(line);
+    }
+
+    private void fill(Task task) {
+        line.setLength(0);
+        line.append(task.getId()).append(',').append(task.getType().name()).append(',');
+        appendText(task.getName());
+        line.append(',').append(task.getStatus().name()).append(',');
+        appendText(task.getDescription());
+        if (task.getType() == TasksType.SUBTASK) {
+            line.append(',').append(((SubTask) task).getEpicId());
+        }
+        if (task.getStartTime() != null) {
+            line.append(',');
+            appendTime(task.getStartTime());
+            line.append(',');
+            appendTime(task.getEndTime());
+            line.append(',').append(task.getDuration().toMinutes());
+        }
+    }
+
+    private void appendText(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendTime(LocalDateTime time) {
+        if (time.getYear() < 1000 || time.getYear() > 9999) {
+            // год не из четырёх цифр - как у DateTimeFormatter
+            line.append(time.format(Managers.DATE_TIME_FORMATTER));
+            return;
+        }
+        appendTwoDigits(time.getDayOfMonth());
+        line.append('.');
+        appendTwoDigits(time.getMonthValue());
+        line.append('.').append(time.getYear()).append(' ');
+        appendTwoDigits(time.getHour());
+        line.append(':');
+        appendTwoDigits(time.getMinute());
+    }
+
+    private void appendTwoDigits(int value) {
+        line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    public Task decode(CharSequence record) {
+        tokenize(record);
+        if (count < 5) {
+            throw new IllegalArgumentException("Некорректная строка задачи: " + record);
+        }
+        int id = parseInt(0);
+        String name = text(2);
+        TaskStatus status = parseStatus(3);
+        String description = text(4);
+        Task task;
+        int timeField = 5;
+        if (is(1, "TASK")) {
+            task = new Task(name, description);
+        } else if (is(1, "EPIC")) {
+            task = new Epic(name, description);
+        } else if (is(1, "SUBTASK")) {
+            task = new SubTask(name, description, parseInt(5));
+            timeField = 6;
+        } else {
+            throw new IllegalArgumentException("Неизвестный тип задачи: " + record);
+        }
+        task.setId(id);
+        task.setStatus(status);
+        // время эпика выводится из подзадач
+        if (task.getType() != TasksType.EPIC && count >= timeField + 3) {
+            task.setStartTime(parseTime(timeField));
+            task.setDuration(Duration.ofMinutes(parseInt(timeField + 2)));
+        }
+        return task;
+    }
+
+    // разбивает запись на поля: запоминаются только границы, значения читаются по требованию
+    private void tokenize(CharSequence record) {
+        source = record;
+        count = 0;
+        int length = record.length();
+        int i = 0;
+        while (count < MAX_FIELDS) {
+            if (i < length && record.charAt(i) == '"') {
+                int start = ++i;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Незакрытая кавычка в строке: " + record);
+                    }
+                    if (record.charAt(i) == '"') {
+                        if (i + 1 < length && record.charAt(i + 1) == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                starts[count] = start;
+                ends[count] = i;
+                quoted[count] = true;
+                i++;
+            } else {
+                int start = i;
+                while (i < length && record.charAt(i) != ',') {
+                    i++;
+                }
+                starts[count] = start;
+                ends[count] = i;
+                quoted[count] = false;
+            }
+            count++;
+            if (i >= length || record.charAt(i) != ',') {
+                break;
+            }
+            i++;
+        }
+    }
+
+    private String text(int field) {
+        String value = source.subSequence(starts[field], ends[field]).toString();
+        return quoted[field] ? value.replace("\"\"", "\"") : value;
+    }
+
+    private boolean is(int field, String expected) {
+        int length = ends[field] - starts[field];
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(starts[field] + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TaskStatus parseStatus(int field) {
+        for (TaskStatus status : TaskStatus.values()) {
+            if (is(field, status.name())) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус задачи: " + text(field));
+    }
+
+    private int parseInt(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        boolean negative = start < end && source.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end) {
+            throw new NumberFormatException("Пустое число в поле " + field);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = source.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Некорректное число: " + text(field));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Некорректное число: " + text(field));
+        }
+        return (int) value;
+    }
+
+    // dd.MM.yyyy HH:mm; всё, что не укладывается в позиции, разбирается форматтером
+    private LocalDateTime parseTime(int field) {
+        int start = starts[field];
+        if (ends[field] - start != TIME_LENGTH || source.charAt(start + 2) != '.' || source.charAt(start + 5) != '.'
+                || source.charAt(start + 10) != ' ' || source.charAt(start + 13) != ':') {
+            return LocalDateTime.parse(text(field), Managers.DATE_TIME_FORMATTER);
+        }
+        return LocalDateTime.of(digits(start + 6, 4), digits(start + 3, 2), digits(start, 2),
+                digits(start + 11, 2), digits(start + 14, 2));
+    }
+
+    private int digits(int from, int length) {
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            int digit = source.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Некорректное время: " + source);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // запись закончена, если все кавычки закрыты; иначе перевод строки - часть значения в кавычках
+    public static boolean isComplete(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 == 0;
+    }
+}
@@ -0,0 +1,11 @@
+package service.managers.supportServices;
+
+// Когда записанное на диск становится устойчивым к сбою питания:
+// NONE - запись остаётся в кэше ОС, fsync не выполняется;
+// BATCHED - один fsync на пакет записей: раз в интервал или по накоплении заданного числа записей;
+// SYNC - каждая запись возвращается только после fsync, одновременные записи делят один fsync.
+public enum Durability {
+    NONE,
+    BATCHED,
+    SYNC
+}
@@ -0,0 +1,119 @@
+package service.managers.supportServices;
+
+import java.util.Arrays;
+
+// Хеш-таблица int -> int с открытой адресацией, без упаковки и без объектов на запись.
+// Отсутствие ключа обозначается значением MISSING, поэтому хранить можно только неотрицательные значения.
+public class IntIntHashMap {
+    public static final int MISSING = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int indexOf(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int find(int key) {
+        int index = indexOf(key);
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int get(int key) {
+        int index = find(key);
+        return index < 0 ? MISSING : values[index];
+    }
+
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("IntIntHashMap хранит только неотрицательные значения");
+        }
+        int index = indexOf(key);
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                int old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            resize(values.length << 1);
+        }
+        return MISSING;
+    }
+
+    public int remove(int key) {
+        int index = find(key);
+        if (index < 0) {
+            return MISSING;
+        }
+        int old = values[index];
+        int gap = index;
+        index = (gap + 1) & mask;
+        // сдвиг цепочки назад, как в IntObjectHashMap
+        while (values[index] != MISSING) {
+            int home = indexOf(keys[index]);
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        values[gap] = MISSING;
+        size--;
+        return old;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int index = indexOf(oldKeys[i]);
+                while (values[index] != MISSING) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+}
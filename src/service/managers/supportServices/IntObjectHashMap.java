@@ -0,0 +1,258 @@
+package service.managers.supportServices;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Хеш-таблица int -> объект с открытой адресацией; методы Map с Integer оставлены для совместимости
+public class IntObjectHashMap<V> extends AbstractMap<Integer, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+    private int modCount;
+
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int indexOf(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int find(int key) {
+        int index = indexOf(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = find(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectHashMap не хранит null-значения");
+        }
+        int index = indexOf(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++size > resizeThreshold) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) values[index];
+        shiftBack(index);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    // сдвигаем назад записи, для которых освободившаяся ячейка лежит на пути от их "родной" позиции
+    private void shiftBack(int gap) {
+        int index = (gap + 1) & mask;
+        while (values[index] != null) {
+            int home = indexOf(keys[index]);
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey((int) (Integer) key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        for (Object stored : values) {
+            if (stored != null && stored.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put((int) key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove((int) (Integer) key) : null;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+        int current;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = advance(next + 1);
+            return current;
+        }
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        return (V) values[nextSlot()];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Integer, V> next() {
+                        int slot = nextSlot();
+                        return new SimpleImmutableEntry<>(keys[slot], (V) values[slot]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package service.managers.supportServices;
+
+import model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Двоичный снимок с индексом, отображённый в память; задачи разбираются по индексу только при обращении
+public class MappedSnapshot {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final MappedByteBuffer[] segments;
+    private final int count;
+    private final long historyOffset;
+    private final int historySize;
+    private final long indexOffset;
+
+    private MappedSnapshot(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        if (intAt(0) != BinarySnapshot.MAGIC) {
+            throw new ManagerSaveException("Файл не является двоичным снимком");
+        }
+        byte version = byteAt(Integer.BYTES);
+        BinarySnapshot.checkVersion(version);
+        if (version < 2) {
+            throw new ManagerSaveException("В снимке версии " + version + " нет индекса");
+        }
+        if (intAt(size - Integer.BYTES) != BinarySnapshot.MAGIC) {
+            throw new ManagerSaveException("Двоичный снимок обрезан");
+        }
+        count = intAt(Integer.BYTES + 1);
+        historyOffset = longAt(size - BinarySnapshot.FOOTER_SIZE);
+        historySize = intAt(historyOffset);
+        indexOffset = historyOffset + Integer.BYTES + (long) historySize * Integer.BYTES;
+        if (indexOffset + (long) count * BinarySnapshot.INDEX_ENTRY_SIZE + BinarySnapshot.FOOTER_SIZE != size) {
+            throw new ManagerSaveException("Индекс двоичного снимка повреждён");
+        }
+    }
+
+    public static MappedSnapshot open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < BinarySnapshot.HEADER_SIZE + BinarySnapshot.FOOTER_SIZE) {
+                throw new ManagerSaveException("Двоичный снимок обрезан");
+            }
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return new MappedSnapshot(segments, size);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения файла");
+        } catch (IndexOutOfBoundsException ex) {
+            throw new ManagerSaveException("Двоичный снимок повреждён");
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // задача с этим id или null; разбирается при каждом вызове
+    public Task get(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long entry = indexOffset + (long) middle * BinarySnapshot.INDEX_ENTRY_SIZE;
+            int current = intAt(entry);
+            if (current < id) {
+                low = middle + 1;
+            } else if (current > id) {
+                high = middle - 1;
+            } else {
+                return decode(longAt(entry + Integer.BYTES));
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = intAt(indexOffset + (long) middle * BinarySnapshot.INDEX_ENTRY_SIZE);
+            if (current == id) {
+                return true;
+            }
+            if (current < id) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return false;
+    }
+
+    // задачи по возрастанию id; каждая разбирается при обращении, сам список их не хранит
+    public List<Task> tasks() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                Objects.checkIndex(index, count);
+                return decode(longAt(indexOffset + (long) index * BinarySnapshot.INDEX_ENTRY_SIZE + Integer.BYTES));
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    // все задачи в порядке записи - одним проходом по области
+    public List<Task> readAll() {
+        List<Task> tasks = new ArrayList<>(count);
+        Cursor cursor = new Cursor(BinarySnapshot.HEADER_SIZE);
+        try {
+            for (int i = 0; i < count; i++) {
+                tasks.add(BinarySnapshot.readTask(cursor));
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения файла");
+        }
+        return tasks;
+    }
+
+    public List<Integer> getHistory() {
+        List<Integer> history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(intAt(historyOffset + Integer.BYTES + (long) i * Integer.BYTES));
+        }
+        return history;
+    }
+
+    private Task decode(long offset) {
+        try {
+            return BinarySnapshot.readTask(new Cursor(offset));
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения файла");
+        }
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private int intAt(long position) {
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+        ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        if (offset + Integer.BYTES <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = value << 8 | (byteAt(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private long longAt(long position) {
+        return (long) intAt(position) << 32 | (intAt(position + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+
+    private class Cursor implements BinarySnapshot.Source {
+        private long position;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public byte get() {
+            return byteAt(position++);
+        }
+
+        @Override
+        public int getInt() {
+            int value = intAt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        @Override
+        public String getString() {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                int offset = (int) (position & (SEGMENT_SIZE - 1));
+                ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+                int chunk = Math.min(length - copied, segment.limit() - offset);
+                segment.position(offset);
+                segment.get(bytes, copied, chunk);
+                copied += chunk;
+                position += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
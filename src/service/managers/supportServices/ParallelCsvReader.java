@@ -0,0 +1,238 @@
+package service.managers.supportServices;
+
+import model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Параллельное чтение большого CSV-снимка: строки задач делятся на куски по chunkSize байт,
+// границы сдвигаются к началу записи с учётом кавычек, каждый кусок читается позиционно
+// и разбирается отдельной задачей ForkJoinPool. Строка истории возвращается как есть.
+public class ParallelCsvReader {
+    public static final long DEFAULT_CHUNK_SIZE = 4L << 20;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public static class Result {
+        private final List<Task> tasks;
+        private final String history;
+
+        private Result(List<Task> tasks, String history) {
+            this.tasks = tasks;
+            this.history = history;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        // null, если история в файле не записана
+        public String getHistory() {
+            return history;
+        }
+    }
+
+    public ParallelCsvReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelCsvReader(ForkJoinPool pool, long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер куска должен быть положительным");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public Result read(File file, Function<String, ? extends Task> parser) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long rowsStart = nextLineStart(channel, 0, size);
+            long rowsEnd = size;
+            String history = null;
+            // история - последняя строка, перед ней пустая строка
+            long contentEnd = size > 0 && byteAt(channel, size - 1) == '\n' ? size - 1 : size;
+            long lastBreak = previousLineBreak(channel, contentEnd);
+            if (lastBreak >= rowsStart && isEmptyLineBefore(channel, lastBreak)) {
+                String lastLine = trim(decode(channel, lastBreak + 1, contentEnd));
+                // последняя строка многострочного значения содержит закрывающую кавычку, история - только числа
+                if (lastLine.chars().allMatch(c -> c == ',' || Character.isDigit(c))) {
+                    history = lastLine;
+                    rowsEnd = lastBreak;
+                }
+            }
+            if (rowsStart >= rowsEnd) {
+                return new Result(Collections.emptyList(), history);
+            }
+            if (rowsEnd - rowsStart <= chunkSize) {
+                return new Result(parseChunk(channel, rowsStart, rowsEnd, parser), history);
+            }
+            List<Callable<List<Task>>> chunks = new ArrayList<>();
+            long chunkStart = rowsStart;
+            while (chunkStart < rowsEnd) {
+                long chunkEnd = chunkStart + chunkSize >= rowsEnd ? rowsEnd
+                        : nextRecordStart(channel, chunkStart, chunkStart + chunkSize, rowsEnd);
+                long start = chunkStart;
+                chunks.add(() -> parseChunk(channel, start, chunkEnd, parser));
+                chunkStart = chunkEnd;
+            }
+            return new Result(parseAll(chunks), history);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения файла");
+        }
+    }
+
+    // куски разбираются параллельно, но результат собирается в порядке строк файла
+    private List<Task> parseAll(List<Callable<List<Task>>> chunks) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try {
+            for (Future<List<Task>> future : pool.invokeAll(chunks)) {
+                tasks.addAll(future.get());
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Чтение файла прервано");
+        }
+        return tasks;
+    }
+
+    private static List<Task> parseChunk(FileChannel channel, long start, long end,
+                                         Function<String, ? extends Task> parser) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                throw new IOException("Файл укоротился во время чтения");
+            }
+        }
+        bytes.flip();
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+        List<Task> tasks = new ArrayList<>();
+        int lineStart = 0;
+        int length = chars.length();
+        boolean inQuotes = false;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && chars.charAt(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+            if (i == length || (chars.charAt(i) == '\n' && !inQuotes)) {
+                String line = trim(chars.subSequence(lineStart, i).toString());
+                if (!line.isBlank()) {
+                    tasks.add(parser.apply(line));
+                }
+                lineStart = i + 1;
+            }
+        }
+        return tasks;
+    }
+
+    // позиция сразу после ближайшего '\n', начиная с from; limit, если до него переводов строки нет
+    private static long nextLineStart(FileChannel channel, long from, long limit) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+        while (position < limit) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && position + i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    // Начало первой записи не раньше target. Счёт кавычек ведётся от from - начала записи,
+    // поэтому перевод строки внутри значения в кавычках не принимается за границу
+    private static long nextRecordStart(FileChannel channel, long from, long target, long limit) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        boolean inQuotes = false;
+        long position = from;
+        while (position < limit) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && position + i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes && position + i + 1 >= target) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    // позиция последнего '\n' перед before или -1
+    private static long previousLineBreak(FileChannel channel, long before) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long end = before;
+        while (end > 0) {
+            long start = Math.max(0, end - SCAN_BUFFER_SIZE);
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            int read = channel.read(buffer, start);
+            for (int i = read - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i;
+                }
+            }
+            end = start;
+        }
+        return -1;
+    }
+
+    private static boolean isEmptyLineBefore(FileChannel channel, long lineBreak) throws IOException {
+        if (lineBreak >= 1 && byteAt(channel, lineBreak - 1) == '\n') {
+            return true;
+        }
+        return lineBreak >= 2 && byteAt(channel, lineBreak - 1) == '\r' && byteAt(channel, lineBreak - 2) == '\n';
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+
+    private static String decode(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, start + buffer.position());
+        }
+        buffer.flip();
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private static String trim(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
@@ -0,0 +1,212 @@
+package service.managers.supportServices;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Неизменяемая мапа int -> объект: 32-ичное префиксное дерево, plus и minus копируют только путь до листа
+public class PersistentIntMap<V> extends AbstractMap<Integer, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int TOP_SHIFT = 30;
+    private static final int DEPTH = TOP_SHIFT / BITS + 1;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final TrieNode root;
+    private final int size;
+    private Set<Entry<Integer, V>> entrySet;
+
+    // на нижнем уровне ветви - сами записи, выше - дочерние узлы
+    private static class TrieNode {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private TrieNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private PersistentIntMap(TrieNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << (((key ^ Integer.MIN_VALUE) >>> shift) & MASK);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    public V get(int key) {
+        Entry<Integer, V> entry = find(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<Integer, V> find(int key) {
+        TrieNode node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[index(node.bitmap, bit)];
+            if (shift == 0) {
+                return (Entry<Integer, V>) slot;
+            }
+            node = (TrieNode) slot;
+        }
+        return null;
+    }
+
+    // новая мапа с key -> value; если значение то же самое, возвращается эта мапа
+    public PersistentIntMap<V> plus(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null значения не поддерживаются");
+        }
+        Entry<Integer, V> previous = find(key);
+        if (previous != null && previous.getValue() == value) {
+            return this;
+        }
+        TrieNode updated = plus(root, TOP_SHIFT, key, new SimpleImmutableEntry<>(key, value));
+        return new PersistentIntMap<>(updated, previous == null ? size + 1 : size);
+    }
+
+    private static TrieNode plus(TrieNode node, int shift, int key, Entry<Integer, ?> entry) {
+        int bit = bit(key, shift);
+        if (node == null) {
+            return new TrieNode(bit, new Object[]{shift == 0 ? entry : plus(null, shift - BITS, key, entry)});
+        }
+        int index = index(node.bitmap, bit);
+        if ((node.bitmap & bit) != 0) {
+            Object[] slots = node.slots.clone();
+            slots[index] = shift == 0 ? entry : plus((TrieNode) slots[index], shift - BITS, key, entry);
+            return new TrieNode(node.bitmap, slots);
+        }
+        Object[] slots = new Object[node.slots.length + 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        slots[index] = shift == 0 ? entry : plus(null, shift - BITS, key, entry);
+        System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+        return new TrieNode(node.bitmap | bit, slots);
+    }
+
+    // новая мапа без key; если ключа нет, возвращается эта мапа
+    public PersistentIntMap<V> minus(int key) {
+        if (find(key) == null) {
+            return this;
+        }
+        return new PersistentIntMap<>(minus(root, TOP_SHIFT, key), size - 1);
+    }
+
+    // опустевший узел удаляется из родителя целиком
+    private static TrieNode minus(TrieNode node, int shift, int key) {
+        int bit = bit(key, shift);
+        int index = index(node.bitmap, bit);
+        if (shift != 0) {
+            TrieNode child = minus((TrieNode) node.slots[index], shift - BITS, key);
+            if (child != null) {
+                Object[] slots = node.slots.clone();
+                slots[index] = child;
+                return new TrieNode(node.bitmap, slots);
+            }
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new TrieNode(node.bitmap & ~bit, slots);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && find((Integer) key) != null;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    // обход в глубину: для каждого уровня - узел и номер следующей ветви
+    private class EntryIterator implements Iterator<Entry<Integer, V>> {
+        private final TrieNode[] nodes = new TrieNode[DEPTH];
+        private final int[] positions = new int[DEPTH];
+        private int level;
+        private Entry<Integer, V> next;
+
+        private EntryIterator() {
+            nodes[0] = root;
+            level = root == null ? -1 : 0;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (level >= 0) {
+                TrieNode node = nodes[level];
+                if (positions[level] == node.slots.length) {
+                    level--;
+                    continue;
+                }
+                Object slot = node.slots[positions[level]++];
+                if (level == DEPTH - 1) {
+                    next = (Entry<Integer, V>) slot;
+                    return;
+                }
+                nodes[++level] = (TrieNode) slot;
+                positions[level] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<Integer, V> current = next;
+            advance();
+            return current;
+        }
+    }
+}
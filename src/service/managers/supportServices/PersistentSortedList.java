@@ -0,0 +1,183 @@
+package service.managers.supportServices;
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Неизменяемый упорядоченный список на AVL-дереве: plus и minus копируют только путь до изменённого узла
+public class PersistentSortedList<T> extends AbstractList<T> {
+    private final Comparator<? super T> comparator;
+    private final TreeNode<T> root;
+
+    private static class TreeNode<T> {
+        private final T value;
+        private final TreeNode<T> left;
+        private final TreeNode<T> right;
+        private final int height;
+        private final int size;
+
+        private TreeNode(T value, TreeNode<T> left, TreeNode<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    public PersistentSortedList(Comparator<? super T> comparator) {
+        this(comparator, null);
+    }
+
+    private PersistentSortedList(Comparator<? super T> comparator, TreeNode<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    private static int height(TreeNode<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(TreeNode<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // новый список с value; равный по comparator элемент заменяется
+    public PersistentSortedList<T> plus(T value) {
+        Objects.requireNonNull(value);
+        TreeNode<T> updated = insert(root, value);
+        return updated == root ? this : new PersistentSortedList<>(comparator, updated);
+    }
+
+    // новый список без равного value элемента; если его нет, возвращается этот список
+    public PersistentSortedList<T> minus(T value) {
+        TreeNode<T> updated = delete(root, value);
+        return updated == root ? this : new PersistentSortedList<>(comparator, updated);
+    }
+
+    private TreeNode<T> insert(TreeNode<T> node, T value) {
+        if (node == null) {
+            return new TreeNode<>(value, null, null);
+        }
+        int compare = comparator.compare(value, node.value);
+        if (compare == 0) {
+            return node.value == value ? node : new TreeNode<>(value, node.left, node.right);
+        }
+        if (compare < 0) {
+            TreeNode<T> left = insert(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        TreeNode<T> right = insert(node.right, value);
+        return right == node.right ? node : balance(node.value, node.left, right);
+    }
+
+    private TreeNode<T> delete(TreeNode<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int compare = comparator.compare(value, node.value);
+        if (compare < 0) {
+            TreeNode<T> left = delete(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (compare > 0) {
+            TreeNode<T> right = delete(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        TreeNode<T> first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.value, node.left, deleteFirst(node.right));
+    }
+
+    private TreeNode<T> deleteFirst(TreeNode<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.value, deleteFirst(node.left), node.right);
+    }
+
+    // высоты поддеревьев после вставки или удаления различаются не больше чем на 2
+    private TreeNode<T> balance(T value, TreeNode<T> left, TreeNode<T> right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new TreeNode<>(left.value, left.left, new TreeNode<>(value, left.right, right));
+            }
+            return new TreeNode<>(left.right.value, new TreeNode<>(left.value, left.left, left.right.left),
+                    new TreeNode<>(value, left.right.right, right));
+        }
+        if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new TreeNode<>(right.value, new TreeNode<>(value, left, right.left), right.right);
+            }
+            return new TreeNode<>(right.left.value, new TreeNode<>(value, left, right.left.left),
+                    new TreeNode<>(right.value, right.left.right, right.right));
+        }
+        return new TreeNode<>(value, left, right);
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        TreeNode<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            @SuppressWarnings("unchecked")
+            private final TreeNode<T>[] path = new TreeNode[height(root)];
+            private int depth;
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(TreeNode<T> node) {
+                for (; node != null; node = node.left) {
+                    path[depth++] = node;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return depth > 0;
+            }
+
+            @Override
+            public T next() {
+                if (depth == 0) {
+                    throw new NoSuchElementException();
+                }
+                TreeNode<T> node = path[--depth];
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
+}
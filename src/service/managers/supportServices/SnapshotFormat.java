@@ -0,0 +1,8 @@
+package service.managers.supportServices;
+
+// Формат полного снимка файлового менеджера: CSV - текстовый, для обмена и ручного просмотра;
+// BINARY - компактный двоичный, быстрее пишется и читается. Журнал в обоих случаях текстовый.
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
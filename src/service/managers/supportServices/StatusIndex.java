@@ -0,0 +1,57 @@
+package service.managers.supportServices;
+
+import model.Task;
+import model.TaskStatus;
+import model.TasksType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Вторичный индекс задач по типу и статусу.
+// Для каждого id запоминается корзина, в которой задача лежит сейчас: статус задачи может смениться
+// в обход менеджера (эпик пересчитывает его сам), и при переиндексации её нужно убрать из старой корзины.
+public class StatusIndex {
+    private final Map<TasksType, Map<TaskStatus, IntObjectHashMap<Task>>> buckets = new EnumMap<>(TasksType.class);
+    private final IntObjectHashMap<IntObjectHashMap<Task>> bucketById = new IntObjectHashMap<>();
+
+    public StatusIndex() {
+        for (TasksType type : TasksType.values()) {
+            Map<TaskStatus, IntObjectHashMap<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new IntObjectHashMap<>());
+            }
+            buckets.put(type, byStatus);
+        }
+    }
+
+    public synchronized void update(Task task) {
+        remove(task.getId());
+        if (task.getType() != null && task.getStatus() != null) {
+            IntObjectHashMap<Task> bucket = buckets.get(task.getType()).get(task.getStatus());
+            bucket.put(task.getId(), task);
+            bucketById.put(task.getId(), bucket);
+        }
+    }
+
+    public synchronized void remove(int id) {
+        IntObjectHashMap<Task> bucket = bucketById.remove(id);
+        if (bucket != null) {
+            bucket.remove(id);
+        }
+    }
+
+    public synchronized void clear() {
+        bucketById.clear();
+        buckets.values().forEach(byStatus -> byStatus.values().forEach(IntObjectHashMap::clear));
+    }
+
+    public synchronized List<Task> get(TaskStatus status, TasksType type) {
+        return new ArrayList<>(buckets.get(type).get(status).values());
+    }
+
+    public synchronized int count(TaskStatus status, TasksType type) {
+        return buckets.get(type).get(status).size();
+    }
+}
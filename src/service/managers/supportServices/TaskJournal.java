@@ -0,0 +1,356 @@
+package service.managers.supportServices;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Журнал изменений: одна строка на операцию, запись только дописывается в конец файла.
+// Формат строки: <тип>,<данные>, где тип - одна из констант ниже. Кодировка всегда UTF-8, как у снимка.
+// Менеджер восстанавливается из последнего снимка и журнала, проигранного поверх него.
+// Устойчивость записи к сбою задаётся режимом Durability; fsync выполняется групповой фиксацией:
+// один поток-ведущий вызывает FileChannel.force за всех, кто успел дописать свои записи до его начала.
+public class TaskJournal implements AutoCloseable {
+    public static final char CREATE = 'C';
+    public static final char UPDATE = 'U';
+    public static final char DELETE = 'D';
+    public static final char STATUS = 'S';
+    public static final char VIEW = 'V';
+    public static final long DEFAULT_BATCH_MILLIS = 10;
+    public static final int DEFAULT_BATCH_RECORDS = 128;
+
+    private final File file;
+    private final File rotated;
+    private final Durability durability;
+    private volatile long batchMillis = DEFAULT_BATCH_MILLIS;
+    private volatile int batchRecords = DEFAULT_BATCH_RECORDS;
+    private BufferedWriter writer;
+    private FileChannel channel;
+    // номер последней дописанной записи; меняется под монитором журнала
+    private long appended;
+    // номер последней записи, покрытой fsync, и признак идущего fsync; меняются под syncLock
+    private final Object syncLock = new Object();
+    private volatile long synced;
+    private boolean forcing;
+    private long forceCount;
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean syncScheduled = new AtomicBoolean();
+    // объём текущего журнала: по нему менеджер решает, пора ли сжимать журнал в снимок
+    private int records;
+    private long size;
+
+    public TaskJournal(File file) {
+        this(file, Durability.NONE);
+    }
+
+    public TaskJournal(File file, Durability durability) {
+        this.file = file;
+        this.rotated = rotatedFileFor(file);
+        this.durability = durability;
+        this.size = file.length();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    // для BATCHED: fsync не позже чем через millis после записи или сразу по накоплении records записей
+    public void setBatchLimits(long millis, int records) {
+        if (millis <= 0 || records <= 0) {
+            throw new IllegalArgumentException("Параметры пакета должны быть положительными");
+        }
+        batchMillis = millis;
+        batchRecords = records;
+    }
+
+    // сколько раз выполнялся fsync: при групповой фиксации заметно меньше числа записей
+    public long getForceCount() {
+        synchronized (syncLock) {
+            return forceCount;
+        }
+    }
+
+    public static File rotatedFileFor(File file) {
+        return new File(file.getPath() + ".old");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public File getRotatedFile() {
+        return rotated;
+    }
+
+    public synchronized int getRecords() {
+        return records;
+    }
+
+    // размер в символах: для порога сжатия точного числа байт не нужно
+    public synchronized long getSize() {
+        return size;
+    }
+
+    // запись остаётся в буфере до flush(): так пакет операций уходит на диск одной записью
+    public synchronized void append(char type, String data) {
+        try {
+            if (writer == null) {
+                FileOutputStream out = new FileOutputStream(file, true);
+                channel = out.getChannel();
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+            writer.write(type);
+            writer.write(',');
+            writer.write(data);
+            writer.newLine();
+            appended++;
+            records++;
+            size += data.length() + 3;
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в журнал");
+        }
+    }
+
+    // Отдаёт дописанные записи ОС и фиксирует их по режиму: SYNC ждёт fsync, BATCHED ждёт его
+    // только когда пакет набрался, иначе откладывает fsync не более чем на batchMillis
+    public void flush() {
+        long sequence;
+        synchronized (this) {
+            flushWriter();
+            sequence = appended;
+        }
+        if (sequence <= synced) {
+            return;
+        }
+        switch (durability) {
+            case SYNC:
+                sync(sequence);
+                break;
+            case BATCHED:
+                if (sequence - synced >= batchRecords) {
+                    sync(sequence);
+                } else {
+                    scheduleSync();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void write(char type, String data) {
+        append(type, data);
+        flush();
+    }
+
+    // fsync всех дописанных на данный момент записей независимо от режима
+    public void sync() {
+        long sequence;
+        synchronized (this) {
+            flushWriter();
+            sequence = appended;
+        }
+        sync(sequence);
+    }
+
+    // Групповая фиксация. Если fsync уже идёт, поток ждёт его окончания: записи, дописанные до начала
+    // того fsync, им и покрыты. Иначе поток сам становится ведущим и одним force фиксирует всё,
+    // что успели дописать другие потоки, пока он ждал
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            while (forcing && synced < sequence) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Ожидание записи журнала прервано");
+                }
+            }
+            if (synced >= sequence) {
+                return;
+            }
+            forcing = true;
+        }
+        long target;
+        FileChannel toForce;
+        synchronized (this) {
+            flushWriter();
+            target = appended;
+            toForce = channel;
+        }
+        boolean forced = false;
+        try {
+            if (toForce != null) {
+                toForce.force(false);
+            }
+            forced = true;
+        } catch (ClosedChannelException ex) {
+            // журнал успел закрыться или смениться, а при закрытии fsync уже выполнен
+            forced = true;
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в журнал");
+        } finally {
+            synchronized (syncLock) {
+                forcing = false;
+                if (forced) {
+                    synced = Math.max(synced, target);
+                    forceCount++;
+                }
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    private void scheduleSync() {
+        if (!syncScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler().schedule(() -> {
+            syncScheduled.set(false);
+            try {
+                sync();
+            } catch (ManagerSaveException ex) {
+                // следующая запись или закрытие журнала повторят fsync
+            }
+        }, batchMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    private void flushWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в журнал");
+        }
+    }
+
+    // после записи полного снимка журнал больше не нужен
+    public synchronized void truncate() {
+        closeWriter();
+        records = 0;
+        size = 0;
+        if (file.exists() && !file.delete()) {
+            throw new ManagerSaveException("Не удалось очистить журнал");
+        }
+    }
+
+    // Текущий журнал откладывается в <журнал>.old, следующие записи пойдут в новый пустой журнал.
+    // Если прошлое сжатие не завершилось и отложенный журнал остался, записи дописываются к нему
+    public synchronized void rotate() {
+        closeWriter();
+        records = 0;
+        size = 0;
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            if (rotated.exists()) {
+                try (OutputStream out = new FileOutputStream(rotated, true)) {
+                    Files.copy(file.toPath(), out);
+                }
+                Files.delete(file.toPath());
+            } else {
+                Files.move(file.toPath(), rotated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось сменить журнал");
+        }
+    }
+
+    // отложенный журнал удаляется, когда его записи вошли в снимок
+    public synchronized void deleteRotated() {
+        if (rotated.exists() && !rotated.delete()) {
+            throw new ManagerSaveException("Не удалось удалить старый журнал");
+        }
+    }
+
+    // журнал можно продолжать писать и после закрытия: файл откроется заново при следующей записи
+    @Override
+    public void close() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            closeWriter();
+            stopped = scheduler;
+            scheduler = null;
+        }
+        if (stopped != null) {
+            stopped.shutdownNow();
+            syncScheduled.set(false);
+        }
+    }
+
+    // перед закрытием файла всё дописанное фиксируется, если режим этого требует
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            if (durability != Durability.NONE && appended > synced) {
+                channel.force(false);
+                synchronized (syncLock) {
+                    synced = Math.max(synced, appended);
+                    forceCount++;
+                }
+            }
+            writer.close();
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка записи в журнал");
+        } finally {
+            writer = null;
+            channel = null;
+        }
+    }
+
+    public static List<String> readRecords(File file) {
+        List<String> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // значение в кавычках может продолжаться на следующих строках
+                StringBuilder record = new StringBuilder(line);
+                while (!CsvCodec.isComplete(record) && (line = reader.readLine()) != null) {
+                    record.append('\n').append(line);
+                }
+                // недописанная при сбое последняя запись пропускается
+                if (record.length() > 2 && record.charAt(1) == ',' && CsvCodec.isComplete(record)) {
+                    records.add(record.toString());
+                }
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Произошла ошибка чтения журнала");
+        }
+        return records;
+    }
+}
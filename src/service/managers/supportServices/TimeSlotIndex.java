@@ -0,0 +1,80 @@
+package service.managers.supportServices;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Индекс занятых временных слотов [start, end) задач и подзадач.
+// Слоты в индексе никогда не пересекаются, поэтому упорядочены и по началу, и по концу:
+// для проверки нового интервала достаточно посмотреть на ближайший слот, начинающийся раньше его конца.
+// Методы синхронизированы: освобождение слота безопасно из любого потока, а проверку вместе с добавлением
+// многопоточный менеджер выполняет под своей блокировкой.
+public class TimeSlotIndex {
+    private final TreeMap<LocalDateTime, Slot> slotsByStart = new TreeMap<>();
+    private final IntObjectHashMap<Slot> slotsById = new IntObjectHashMap<>();
+
+    private static class Slot {
+        private final int id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private Slot(int id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public synchronized boolean hasIntersection(Task task) {
+        return hasIntersection(task.getStartTime(), task.getEndTime(), task.getId());
+    }
+
+    // id задачи, которая сейчас занимает слот, не считается пересечением (обновление самой себя)
+    public synchronized boolean hasIntersection(LocalDateTime start, LocalDateTime end, int ignoredId) {
+        if (!isIndexable(start, end)) {
+            return false;
+        }
+        Map.Entry<LocalDateTime, Slot> entry = slotsByStart.lowerEntry(end);
+        while (entry != null && entry.getValue().end.isAfter(start)) {
+            if (entry.getValue().id != ignoredId) {
+                return true;
+            }
+            entry = slotsByStart.lowerEntry(entry.getKey());
+        }
+        return false;
+    }
+
+    public synchronized void add(Task task) {
+        remove(task.getId());
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (isIndexable(start, end)) {
+            Slot slot = new Slot(task.getId(), start, end);
+            slotsByStart.put(start, slot);
+            slotsById.put(slot.id, slot);
+        }
+    }
+
+    public synchronized void remove(int id) {
+        Slot slot = slotsById.remove(id);
+        if (slot != null) {
+            slotsByStart.remove(slot.start, slot);
+        }
+    }
+
+    public synchronized void clear() {
+        slotsByStart.clear();
+        slotsById.clear();
+    }
+
+    public synchronized int size() {
+        return slotsById.size();
+    }
+
+    // пустой интервал (без времени или нулевой длительности) ни с чем не пересекается
+    private boolean isIndexable(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null && end.isAfter(start);
+    }
+}
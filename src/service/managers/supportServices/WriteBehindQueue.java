@@ -0,0 +1,192 @@
+package service.managers.supportServices;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+// Очередь отложенной записи: отдельный поток пишет накопленное пакетом, правки одного ключа подряд сливаются
+public class WriteBehindQueue<T> implements AutoCloseable {
+    private final ArrayDeque<Change<T>> queue = new ArrayDeque<>();
+    private final int capacity;
+    private final BinaryOperator<T> merge;
+    private final Consumer<List<T>> writer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition persisted = lock.newCondition();
+    private final Thread thread;
+    // всё, что ниже, меняется только под lock
+    private boolean writing;
+    private boolean closed;
+    private long persistedRevision;
+    private RuntimeException failure;
+
+    private static class Change<T> {
+        private final Object key;
+        private T value;
+        private long revision;
+
+        private Change(Object key, T value, long revision) {
+            this.key = key;
+            this.value = value;
+            this.revision = revision;
+        }
+    }
+
+    public WriteBehindQueue(String name, int capacity, BinaryOperator<T> merge, Consumer<List<T>> writer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер очереди записи должен быть положительным");
+        }
+        this.capacity = capacity;
+        this.merge = merge;
+        this.writer = writer;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // merge вернул null - правки не сливаются; в полную очередь добавляющий поток ждёт места
+    public void submit(Object key, T value, long revision) {
+        lock.lock();
+        try {
+            while (true) {
+                checkFailure();
+                if (closed) {
+                    throw new IllegalStateException("Очередь записи закрыта");
+                }
+                Change<T> tail = queue.peekLast();
+                if (tail != null && tail.key.equals(key)) {
+                    T merged = merge.apply(tail.value, value);
+                    if (merged != null) {
+                        tail.value = merged;
+                        tail.revision = Math.max(tail.revision, revision);
+                        return;
+                    }
+                }
+                if (queue.size() < capacity) {
+                    break;
+                }
+                await(notFull);
+            }
+            queue.addLast(new Change<>(key, value, revision));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // если изменений с такой ревизией не было, достаточно того, что очередь разобрана
+    public void awaitPersisted(long revision) {
+        lock.lock();
+        try {
+            while (persistedRevision < revision && failure == null && (writing || !queue.isEmpty())) {
+                await(persisted);
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            while (failure == null && (writing || !queue.isEmpty())) {
+                await(persisted);
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // писатель дописывает всё, что уже в очереди, и завершается
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<T> batch = new ArrayList<>();
+            long revision = 0;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                for (Change<T> change : queue) {
+                    batch.add(change.value);
+                    revision = Math.max(revision, change.revision);
+                }
+                queue.clear();
+                writing = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException error = null;
+            try {
+                writer.accept(batch);
+            } catch (RuntimeException ex) {
+                error = ex;
+            }
+            lock.lock();
+            try {
+                writing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    persistedRevision = Math.max(persistedRevision, revision);
+                }
+                persisted.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void await(Condition condition) {
+        try {
+            condition.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Ожидание записи прервано");
+        }
+    }
+
+    // ошибка записи не теряется: о ней узнает следующий вызов из потока менеджера
+    private void checkFailure() {
+        if (failure != null) {
+            throw new ManagerSaveException("Отложенная запись не удалась: " + failure.getMessage());
+        }
+    }
+}
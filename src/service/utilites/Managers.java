@@ -4,6 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import service.adapters.DurationAdapter;
 import service.adapters.LocalDateTimeAdapter;
+import service.managers.ArrayHistoryManager;
+import service.managers.ConcurrentHistoryManager;
+import service.managers.ConcurrentTaskManager;
 import service.managers.HistoryManager;
 import service.managers.HttpTaskManager;
 import service.managers.InMemoryHistoryManager;
@@ -20,11 +23,39 @@ public class Managers {
     }
 
     public static TaskManager getDefault() {
-        return new HttpTaskManager("http://localhost:8078/");
+        return getDefault(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public static TaskManager getDefault(int historyCapacity) {
+        return new HttpTaskManager("http://localhost:8078/", getDefaultHistory(historyCapacity));
+    }
+
+    public static TaskManager getConcurrent() {
+        return getConcurrent(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public static TaskManager getConcurrent(int historyCapacity) {
+        return new ConcurrentTaskManager(getConcurrentHistory(historyCapacity));
     }
 
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return getDefaultHistory(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
+
+    public static HistoryManager getArrayHistory(int capacity) {
+        return new ArrayHistoryManager(capacity);
     }
 
     public static Gson getDefaultGson() {
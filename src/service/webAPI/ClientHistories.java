@@ -0,0 +1,76 @@
+package service.webAPI;
+
+import model.Task;
+import service.managers.ArrayHistoryManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Истории просмотров по клиентам. У каждого клиента своя небольшая история на массивах
+// с собственной блокировкой, поэтому разные клиенты не конкурируют за общее состояние.
+// Клиенты, которые дольше idleTimeout ничего не запрашивали, удаляются при очередном обращении.
+public class ClientHistories {
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long idleTimeoutNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private static class Partition {
+        private final ArrayHistoryManager history;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Partition(int capacity) {
+            history = new ArrayHistoryManager(capacity);
+        }
+    }
+
+    public ClientHistories(int capacity, Duration idleTimeout) {
+        this.capacity = capacity;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    public void add(String clientId, Task task) {
+        Partition partition = touch(clientId);
+        synchronized (partition) {
+            partition.history.add(task);
+        }
+    }
+
+    public List<Task> getHistory(String clientId) {
+        Partition partition = touch(clientId);
+        synchronized (partition) {
+            return partition.history.getHistory();
+        }
+    }
+
+    public List<Task> getHistory(String clientId, int offset, int limit) {
+        Partition partition = touch(clientId);
+        synchronized (partition) {
+            return partition.history.getHistory(offset, limit);
+        }
+    }
+
+    public int size() {
+        expireIdle();
+        return partitions.size();
+    }
+
+    private Partition touch(String clientId) {
+        expireIdle();
+        Partition partition = partitions.computeIfAbsent(clientId, id -> new Partition(capacity));
+        partition.lastAccess = System.nanoTime();
+        return partition;
+    }
+
+    // обход всех клиентов не чаще раза за idleTimeout; запускает его тот, кто первым сдвинул отметку
+    private void expireIdle() {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last < idleTimeoutNanos || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        partitions.values().removeIf(partition -> now - partition.lastAccess >= idleTimeoutNanos);
+    }
+}
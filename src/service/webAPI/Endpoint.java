@@ -17,6 +17,8 @@ public enum Endpoint {
     DELETE_EPIC_BY_ID,
     DELETE_ALL_EPICS,
     GET_PRIORITY_TASKS,
+    GET_TASKS_BETWEEN,
     GET_HISTORY,
+    GET_BY_STATUS,
     UNKNOWN
 }
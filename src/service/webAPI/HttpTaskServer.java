@@ -10,7 +10,9 @@ import com.sun.net.httpserver.HttpServer;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
 import model.TasksType;
+import service.managers.InMemoryHistoryManager;
 import service.managers.TaskManager;
 import service.utilites.Managers;
 
@@ -18,25 +20,58 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 public class HttpTaskServer {
     private final TaskManager taskManager;
     private static final int PORT = 8080;
     private final Gson gson;
     private final HttpServer server;
+    private final ExecutorService executor;
+    // клиент, приславший этот заголовок, получает собственную историю просмотров
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final Duration CLIENT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private final ClientHistories clientHistories;
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, 1);
+    }
+
+    // несколько потоков-обработчиков имеют смысл только с потокобезопасным менеджером (ConcurrentTaskManager)
+    public HttpTaskServer(TaskManager taskManager, int threads) throws IOException {
+        this(taskManager, threads, CLIENT_IDLE_TIMEOUT);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int threads, Duration clientIdleTimeout) throws IOException {
         this.taskManager = taskManager;
+        clientHistories = new ClientHistories(InMemoryHistoryManager.DEFAULT_CAPACITY, clientIdleTimeout);
         gson = Managers.getDefaultGson();
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
         server.createContext("/tasks", new TaskHandler());
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads);
+            server.setExecutor(executor);
+        } else {
+            executor = null;
+        }
         server.start();
         System.out.println("HTTP-сервер запущен на " + PORT + " порту!");
     }
 
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     class TaskHandler implements HttpHandler {
@@ -47,6 +82,9 @@ public class HttpTaskServer {
                 case GET_PRIORITY_TASKS:
                     handleGetPriorityTasks(exchange);
                     break;
+                case GET_TASKS_BETWEEN:
+                    handleGetTasksBetween(exchange);
+                    break;
                 case GET_TASKS:
                     handleGetTasks(exchange);
                     break;
@@ -68,6 +106,9 @@ public class HttpTaskServer {
                 case GET_HISTORY:
                     handleGetHistory(exchange);
                     break;
+                case GET_BY_STATUS:
+                    handleGetByStatus(exchange);
+                    break;
                 case POST_TASK:
                 case POST_SUBTASK:
                 case POST_EPIC:
@@ -97,16 +138,35 @@ public class HttpTaskServer {
         }
 
         private void handleGetPriorityTasks(HttpExchange h) throws IOException {
-            String priorityTasks = gson.toJson(taskManager.getPrioritizedTasks());
+            String priorityTasks = gson.toJson(taskManager.getSnapshot().getPrioritizedTasks());
             writeResponse(h, priorityTasks, 200);
         }
 
+        // окно календаря: /tasks?from=21.01.2023 10:00&to=22.01.2023 10:00, любая граница может отсутствовать
+        private void handleGetTasksBetween(HttpExchange h) throws IOException {
+            String query = h.getRequestURI().getQuery();
+            try {
+                LocalDateTime from = parseDateTime(getQueryParam(query, "from"));
+                LocalDateTime to = parseDateTime(getQueryParam(query, "to"));
+                writeResponse(h, gson.toJson(taskManager.getTasksBetween(from, to)), 200);
+            } catch (DateTimeParseException | IllegalArgumentException ex) {
+                writeResponse(h, "Некорректный интервал времени", 400);
+            }
+        }
+
+        // пробел в параметре может прийти как '+'
+        private LocalDateTime parseDateTime(String value) {
+            if (value.isBlank()) {
+                return null;
+            }
+            return LocalDateTime.parse(value.replace('+', ' '), Managers.DATE_TIME_FORMATTER);
+        }
+
         private void handleDeleteTaskByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            Task task = taskManager.getTasks().get(id);
+            Task task = taskManager.removeTaskById(id);
             if (task != null) {
-                taskManager.removeTask(task);
                 writeResponse(h, "Задача успешно удалена", 200);
             } else {
                 writeResponse(h, "Задачи с таким ID не существует", 404);
@@ -121,9 +181,8 @@ public class HttpTaskServer {
         private void handleDeleteSubtaskByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            SubTask subtask = taskManager.getSubTasks().get(id);
+            SubTask subtask = taskManager.removeSubTaskById(id);
             if (subtask != null) {
-                taskManager.removeSubTask(subtask);
                 writeResponse(h, "Подзадача успешно удалена", 200);
             } else {
                 writeResponse(h, "Подзадачи с таким ID не существует", 404);
@@ -138,9 +197,8 @@ public class HttpTaskServer {
         private void handleDeleteEpicByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            Epic epic = taskManager.getEpics().get(id);
+            Epic epic = taskManager.removeEpicById(id);
             if (epic != null) {
-                taskManager.removeEpic(epic);
                 writeResponse(h, "Эпик успешно удалён", 200);
             } else {
                 writeResponse(h, "Эпика с таким ID не существует", 404);
@@ -215,9 +273,120 @@ public class HttpTaskServer {
             writeResponse(h, "Задача успешно создана", 201);
         }
 
+        // выборка из индекса по статусу: /tasks/task?status=DONE, /tasks/subtask?status=NEW, /tasks/epic?status=...
+        private void handleGetByStatus(HttpExchange h) throws IOException {
+            TasksType type = getTypeFromPath(h.getRequestURI().getPath());
+            TaskStatus status;
+            try {
+                status = TaskStatus.valueOf(getQueryParam(h.getRequestURI().getQuery(), "status"));
+            } catch (IllegalArgumentException ex) {
+                writeResponse(h, "Некорректный статус задачи", 400);
+                return;
+            }
+            writeResponse(h, gson.toJson(taskManager.getByStatus(status, type)), 200);
+        }
+
+        private TasksType getTypeFromPath(String path) {
+            switch (path.split("/")[2]) {
+                case "subtask":
+                    return TasksType.SUBTASK;
+                case "epic":
+                    return TasksType.EPIC;
+                default:
+                    return TasksType.TASK;
+            }
+        }
+
+        private String getQueryParam(String query, String name) {
+            if (query == null) {
+                return "";
+            }
+            for (String param : query.split("&")) {
+                int separator = param.indexOf("=");
+                if (separator > 0 && param.substring(0, separator).equals(name)) {
+                    return param.substring(separator + 1);
+                }
+            }
+            return "";
+        }
+
+        // /tasks/history?offset=&limit= отдаёт страницу истории без копирования всего списка, считая от самого
+        // старого просмотра; /tasks/history?last=N - N последних просмотров (тоже от старых к новым), last
+        // с offset и limit не сочетается. С заголовком X-Client-Id - историю этого клиента
         private void handleGetHistory(HttpExchange h) throws IOException {
-            String history = gson.toJson(taskManager.getHistory());
-            writeResponse(h, history, 200);
+            String query = h.getRequestURI().getQuery();
+            String limit = getQueryParam(query, "limit");
+            String offset = getQueryParam(query, "offset");
+            String last = getQueryParam(query, "last");
+            String clientId = getClientId(h);
+            try {
+                int from = offset.isBlank() ? 0 : Integer.parseInt(offset);
+                int count = limit.isBlank() ? Integer.MAX_VALUE : Integer.parseInt(limit);
+                int tail = last.isBlank() ? 0 : Integer.parseInt(last);
+                if (from < 0 || count < 0 || tail < 0 || (!last.isBlank() && !(offset + limit).isBlank())) {
+                    throw new IllegalArgumentException();
+                }
+                List<Task> history;
+                if (!last.isBlank() && clientId != null) {
+                    List<Task> all = actualTasks(clientHistories.getHistory(clientId));
+                    history = all.subList(Math.max(0, all.size() - tail), all.size());
+                } else if (!last.isBlank()) {
+                    history = taskManager.getHistoryManager().getRecentHistory(tail);
+                } else if (clientId != null) {
+                    history = actualTasks(clientHistories.getHistory(clientId)).stream()
+                            .skip(from)
+                            .limit(count)
+                            .collect(Collectors.toList());
+                } else if (limit.isBlank() && offset.isBlank()) {
+                    history = taskManager.getHistory();
+                } else {
+                    history = taskManager.getHistoryManager().getHistory(from, count);
+                }
+                writeResponse(h, gson.toJson(history), 200);
+            } catch (IllegalArgumentException ex) {
+                writeResponse(h, "Некорректные параметры истории", 400);
+            }
+        }
+
+        private String getClientId(HttpExchange h) {
+            String clientId = h.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+            return clientId == null || clientId.isBlank() ? null : clientId;
+        }
+
+        // просмотр клиента с X-Client-Id попадает только в его историю, общая история менеджера не трогается
+        private <T extends Task> T viewTask(HttpExchange h, int id, IntFunction<T> getById, Map<Integer, T> tasks) {
+            String clientId = getClientId(h);
+            if (clientId == null) {
+                return getById.apply(id);
+            }
+            T task = tasks.get(id);
+            if (task != null) {
+                clientHistories.add(clientId, task);
+            }
+            return task;
+        }
+
+        // история клиента хранит объекты на момент просмотра: удалённые задачи отбрасываются,
+        // обновлённые подменяются текущими
+        private List<Task> actualTasks(List<Task> history) {
+            List<Task> actual = new ArrayList<>(history.size());
+            for (Task viewed : history) {
+                Task current;
+                switch (viewed.getType()) {
+                    case EPIC:
+                        current = taskManager.getEpics().get(viewed.getId());
+                        break;
+                    case SUBTASK:
+                        current = taskManager.getSubTasks().get(viewed.getId());
+                        break;
+                    default:
+                        current = taskManager.getTasks().get(viewed.getId());
+                }
+                if (current != null) {
+                    actual.add(current);
+                }
+            }
+            return actual;
         }
 
         private int validateQuery(HttpExchange h) throws IOException {
@@ -234,7 +403,7 @@ public class HttpTaskServer {
         private void handleGetEpicByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            Epic epic = taskManager.getEpicById(id);
+            Epic epic = viewTask(h, id, taskManager::getEpicById, taskManager.getEpics());
             if (epic != null) {
                 String JsonEpic = gson.toJson(epic);
                 writeResponse(h, JsonEpic, 200);
@@ -244,14 +413,14 @@ public class HttpTaskServer {
         }
 
         private void handleGetEpics(HttpExchange h) throws IOException {
-            String JsonEpics = gson.toJson(new ArrayList<>(taskManager.getEpics().values()));
+            String JsonEpics = gson.toJson(taskManager.getSnapshot().getEpics().values());
             writeResponse(h, JsonEpics, 200);
         }
 
         private void handleGetSubtaskByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            SubTask subtask = taskManager.getSubTaskById(id);
+            SubTask subtask = viewTask(h, id, taskManager::getSubTaskById, taskManager.getSubTasks());
             if (subtask != null) {
                 String JsonSubtask = gson.toJson(subtask);
                 writeResponse(h, JsonSubtask, 200);
@@ -261,19 +430,19 @@ public class HttpTaskServer {
         }
 
         private void handleGetSubtasks(HttpExchange h) throws IOException {
-            String JsonSubs = gson.toJson(new ArrayList<>(taskManager.getSubTasks().values()));
+            String JsonSubs = gson.toJson(taskManager.getSnapshot().getSubTasks().values());
             writeResponse(h, JsonSubs, 200);
         }
 
         private void handleGetTasks(HttpExchange h) throws IOException {
-            String JsonTasks = gson.toJson(new ArrayList<>(taskManager.getTasks().values()));
+            String JsonTasks = gson.toJson(taskManager.getSnapshot().getTasks().values());
             writeResponse(h, JsonTasks, 200);
         }
 
         private void handleGetTaskByID(HttpExchange h) throws IOException {
             int id = validateQuery(h);
             if(id == -1) return;
-            Task task = taskManager.getTaskById(id);
+            Task task = viewTask(h, id, taskManager::getTaskById, taskManager.getTasks());
             if (task != null) {
                 String JsonTask = gson.toJson(task);
                 writeResponse(h, JsonTask, 200);
@@ -306,23 +475,32 @@ public class HttpTaskServer {
             switch (requestMethod) {
                 case "GET":
                     if (pathParts.length == 2) {
+                        if (query.contains("from=") || query.contains("to=")) {
+                            return Endpoint.GET_TASKS_BETWEEN;
+                        }
                         return Endpoint.GET_PRIORITY_TASKS;
                     }
                     switch (pathParts[2]) {
                         case "task":
-                            if (!query.isBlank()) {
+                            if (query.startsWith("status=")) {
+                                return Endpoint.GET_BY_STATUS;
+                            } else if (!query.isBlank()) {
                                 return Endpoint.GET_TASK_BY_ID;
                             } else {
                                 return Endpoint.GET_TASKS;
                             }
                         case "subtask":
-                            if (!query.isBlank()) {
+                            if (query.startsWith("status=")) {
+                                return Endpoint.GET_BY_STATUS;
+                            } else if (!query.isBlank()) {
                                 return Endpoint.GET_SUBTASK_BY_ID;
                             } else {
                                 return Endpoint.GET_SUBTASKS;
                             }
                         case "epic":
-                            if (!query.isBlank()) {
+                            if (query.startsWith("status=")) {
+                                return Endpoint.GET_BY_STATUS;
+                            } else if (!query.isBlank()) {
                                 return Endpoint.GET_EPIC_BY_ID;
                             } else {
                                 return Endpoint.GET_EPICS;
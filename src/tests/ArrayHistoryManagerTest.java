@@ -0,0 +1,105 @@
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.ArrayHistoryManager;
+import service.managers.HistoryManager;
+import service.managers.InMemoryTaskManager;
+import service.utilites.Managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrayHistoryManagerTest {
+    HistoryManager historyManager;
+    InMemoryTaskManager manager;
+
+    @BeforeEach
+    void beforeEach() {
+        manager = new InMemoryTaskManager();
+        historyManager = Managers.getArrayHistory(3);
+    }
+
+    @Test
+    void add_shouldMoveViewedTaskToEndWithoutDuplicates() {
+        Epic epic1 = manager.createTask(new Epic("Epic1", "description1"));
+        Epic epic2 = manager.createTask(new Epic("Epic2", "description2"));
+
+        historyManager.add(epic1);
+        historyManager.add(epic2);
+        historyManager.add(epic1);
+        assertEquals(List.of(epic2, epic1), historyManager.getHistory());
+    }
+
+    @Test
+    void add_shouldEvictLeastRecentlyViewedTaskWhenCapacityIsReached() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            tasks.add(manager.createTask(new Task("Task" + i, "description")));
+        }
+        historyManager.add(tasks.get(0));
+        historyManager.add(tasks.get(1));
+        historyManager.add(tasks.get(2));
+        historyManager.add(tasks.get(0));
+        historyManager.add(tasks.get(3));
+        historyManager.add(tasks.get(4));
+        assertEquals(List.of(tasks.get(0), tasks.get(3), tasks.get(4)), historyManager.getHistory());
+    }
+
+    @Test
+    void remove_shouldReuseFreedSlots() {
+        Task task1 = manager.createTask(new Task("Task1", "description"));
+        Task task2 = manager.createTask(new Task("Task2", "description"));
+        Task task3 = manager.createTask(new Task("Task3", "description"));
+        Task task4 = manager.createTask(new Task("Task4", "description"));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.remove(task2.getId());
+        historyManager.remove(task2.getId());
+        historyManager.add(task4);
+        assertEquals(List.of(task1, task3, task4), historyManager.getHistory());
+
+        historyManager.remove(task1.getId());
+        historyManager.remove(task3.getId());
+        historyManager.remove(task4.getId());
+        assertTrue(historyManager.getHistory().isEmpty());
+        historyManager.add(task2);
+        assertEquals(List.of(task2), historyManager.getHistory());
+    }
+
+    @Test
+    void constructor_shouldRejectNotPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ArrayHistoryManager(0));
+    }
+
+    @Test
+    void stream_shouldFollowViewOrder() {
+        Task task1 = manager.createTask(new Task("Task1", "description"));
+        Task task2 = manager.createTask(new Task("Task2", "description"));
+        historyManager.add(task2);
+        historyManager.add(task1);
+        assertEquals(List.of(task2, task1), historyManager.stream().collect(Collectors.toList()));
+        assertEquals(List.of(task1), historyManager.getHistory(1, 5));
+        assertEquals(2, historyManager.size());
+    }
+
+    @Test
+    void getRecentHistory_shouldReturnLastViewsInViewOrder() {
+        Task task1 = manager.createTask(new Task("Task1", "description"));
+        Task task2 = manager.createTask(new Task("Task2", "description"));
+        Task task3 = manager.createTask(new Task("Task3", "description"));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        assertEquals(List.of(task2, task3), historyManager.getRecentHistory(2));
+        assertEquals(List.of(task1, task2, task3), historyManager.getRecentHistory(10));
+        assertEquals(List.of(), historyManager.getRecentHistory(0));
+        assertThrows(IllegalArgumentException.class, () -> historyManager.getRecentHistory(-1));
+    }
+}
@@ -0,0 +1,221 @@
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.FileBackedTasksManager;
+import service.managers.supportServices.BinarySnapshot;
+import service.managers.supportServices.Durability;
+import service.managers.supportServices.MappedSnapshot;
+import service.managers.supportServices.SnapshotFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTasksManagerTest extends TaskManagerTest<FileBackedTasksManager> {
+    File file;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = Files.createTempFile("tasks", ".bin").toFile();
+        manager = new FileBackedTasksManager(file.getPath(), false, false, Durability.NONE, SnapshotFormat.BINARY);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    void save_shouldWriteBinarySnapshot() {
+        manager.createTask(new Task("task", "description"));
+
+        assertTrue(BinarySnapshot.isBinary(file));
+    }
+
+    @Test
+    void loadFromFile_shouldRestoreTasksAndHistoryAndKeepFormat() {
+        manager.createTask(new Epic("Epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:43", 357));
+        manager.createTask(new SubTask("subtask2", "description2", 1));
+        manager.createTask(new Task("Task", "task", "19.01.2023 17:41", 315));
+        SubTask done = manager.getSubTaskById(3);
+        done.setStatus(TaskStatus.DONE);
+        manager.updateTask(done);
+        manager.getEpicById(1);
+        manager.getTaskById(4);
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(SnapshotFormat.BINARY, backedManager.getFormat());
+        assertEquals(manager.getTasks(), backedManager.getTasks());
+        assertEquals(manager.getEpics(), backedManager.getEpics());
+        assertEquals(manager.getSubTasks(), backedManager.getSubTasks());
+        assertEquals(manager.getHistory(), backedManager.getHistory());
+        assertEquals(manager.getPrioritizedTasks().toString(), backedManager.getPrioritizedTasks().toString());
+        assertEquals(5, backedManager.createTask(new Task("next", "description")).getId());
+        assertTrue(BinarySnapshot.isBinary(file));
+    }
+
+    @Test
+    void loadFromFile_shouldRestoreNullsUnicodeAndLongValues() {
+        String longDescription = "строка, \"кавычки\"\n".repeat(10_000);
+        manager.createTask(new Task(null, longDescription));
+        manager.createTask(new Epic("эпик 🙂", null));
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+        assertNull(backedManager.getTaskById(1).getName());
+        assertEquals(longDescription, backedManager.getTaskById(1).getDescription());
+        assertEquals("эпик 🙂", backedManager.getEpicById(2).getName());
+        assertNull(backedManager.getEpicById(2).getDescription());
+    }
+
+    @Test
+    void save_shouldWriteIndexedSnapshotReadableThroughMapping() {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:43", 357));
+
+        assertTrue(BinarySnapshot.isIndexed(file));
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+        assertEquals(manager.getSubTasks().get(2), snapshot.get(2));
+        assertEquals(List.of(manager.getEpics().get(1), manager.getSubTasks().get(2)), snapshot.tasks());
+    }
+
+    @Test
+    void loadFromFile_shouldReadSnapshotWithoutIndex() {
+        Task task = new Task("task", "description", "19.01.2023 17:41", 315);
+        task.setId(3);
+        BinarySnapshot.write(file, List.of(List.of(task)), List.of(3), false, false);
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+        assertFalse(BinarySnapshot.isIndexed(file));
+        assertEquals(task, backedManager.getTasks().get(3));
+        assertEquals(List.of(task), backedManager.getHistory());
+        backedManager.createTask(new Epic("epic", "description"));
+        assertTrue(BinarySnapshot.isIndexed(file));
+    }
+
+    @Test
+    void exportCsv_shouldWriteCsvThatLoadsAsCsv() throws IOException {
+        manager.createTask(new Task("task", "a,b", "19.01.2023 17:41", 315));
+        manager.getTaskById(1);
+        File csv = Files.createTempFile("tasks", ".csv").toFile();
+        try {
+            manager.exportCsv(csv);
+
+            assertFalse(BinarySnapshot.isBinary(csv));
+            FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(csv);
+            assertEquals(SnapshotFormat.CSV, backedManager.getFormat());
+            assertEquals(manager.getTasks(), backedManager.getTasks());
+            assertEquals(manager.getHistory(), backedManager.getHistory());
+        } finally {
+            Files.deleteIfExists(csv.toPath());
+        }
+    }
+
+    @Test
+    void binarySnapshot_shouldBeSmallerThanCsv() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task("task" + i, "description",
+                    String.format("%02d.01.2023 %02d:00", 1 + i / 24, i % 24), 30));
+        }
+        File csv = Files.createTempFile("tasks", ".csv").toFile();
+        try {
+            manager.exportCsv(csv);
+            assertTrue(file.length() < csv.length());
+        } finally {
+            Files.deleteIfExists(csv.toPath());
+        }
+        assertEquals(100, FileBackedTasksManager.loadFromFile(file).getTasks().size());
+    }
+
+    @Test
+    void save_shouldRewriteSnapshotItWasLoadedFrom() {
+        manager.createTask(new Task("task", "description"));
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+
+        backedManager.createTask(new Epic("epic", "description"));
+        assertEquals(backedManager.getEpics(), FileBackedTasksManager.loadFromFile(file).getEpics());
+    }
+
+    @Test
+    void exportIndexed_shouldWriteSnapshotReadableById() throws IOException {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:43", 357));
+        File indexed = Files.createTempFile("tasks", ".bin").toFile();
+        try {
+            manager.exportIndexed(indexed);
+
+            MappedSnapshot snapshot = MappedSnapshot.open(indexed);
+            assertEquals(manager.getSubTasks().get(2), snapshot.get(2));
+            assertEquals(manager.getEpics(), FileBackedTasksManager.loadFromFile(indexed).getEpics());
+        } finally {
+            Files.deleteIfExists(indexed.toPath());
+        }
+    }
+
+    @Test
+    void loadFromFile_shouldReplayJournalOverBinarySnapshot() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file.toPath());
+        FileBackedTasksManager journaled = new FileBackedTasksManager(file.getPath(), false, true,
+                Durability.NONE, SnapshotFormat.BINARY);
+        try {
+            journaled.createTask(new Task("task", "description"));
+            journaled.save();
+            journaled.createTask(new Epic("epic", "description"));
+            journaled.close();
+
+            FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+            assertEquals(SnapshotFormat.BINARY, backedManager.getFormat());
+            assertEquals(journaled.getTasks(), backedManager.getTasks());
+            assertEquals(journaled.getEpics(), backedManager.getEpics());
+            backedManager.close();
+        } finally {
+            Files.deleteIfExists(FileBackedTasksManager.journalFileFor(file).toPath());
+        }
+    }
+
+    // минуты от эпохи для 9999 года не помещаются в int, и запись задачи падает посреди снимка
+    @Test
+    void save_shouldKeepPreviousSnapshotWhenWriteFailsMidway() {
+        manager.createTask(new Task("task", "description"));
+        manager.createTask(new Epic("epic", "description"));
+
+        assertThrows(ArithmeticException.class,
+                () -> manager.createTask(new Task("far", "description", "01.01.9999 10:00", 30)));
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(1, backedManager.getTasks().size());
+        assertEquals(manager.getEpics(), backedManager.getEpics());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void save_shouldKeepJournalWhenSnapshotWriteFails() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file.toPath());
+        FileBackedTasksManager journaled = new FileBackedTasksManager(file.getPath(), false, true,
+                Durability.NONE, SnapshotFormat.BINARY);
+        try {
+            journaled.createTask(new Task("task", "description"));
+            journaled.save();
+            journaled.createTask(new Epic("epic", "description"));
+            journaled.createTask(new Task("far", "description", "01.01.9999 10:00", 30));
+            assertThrows(ArithmeticException.class, journaled::save);
+            journaled.close();
+
+            FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(file);
+            assertEquals(journaled.getTasks(), backedManager.getTasks());
+            assertEquals(journaled.getEpics(), backedManager.getEpics());
+            backedManager.close();
+        } finally {
+            Files.deleteIfExists(FileBackedTasksManager.journalFileFor(file).toPath());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import model.Task;
+import org.junit.jupiter.api.Test;
+import service.webAPI.ClientHistories;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientHistoriesTest {
+    @Test
+    void add_shouldKeepSeparateBoundedHistoryForEachClient() {
+        ClientHistories histories = new ClientHistories(2, Duration.ofMinutes(1));
+        Task task1 = new Task("task1", "description");
+        task1.setId(1);
+        Task task2 = new Task("task2", "description");
+        task2.setId(2);
+        Task task3 = new Task("task3", "description");
+        task3.setId(3);
+        histories.add("alice", task1);
+        histories.add("alice", task2);
+        histories.add("alice", task3);
+        histories.add("bob", task1);
+
+        assertEquals(List.of(task2, task3), histories.getHistory("alice"));
+        assertEquals(List.of(task1), histories.getHistory("bob"));
+        assertEquals(List.of(task3), histories.getHistory("alice", 1, 5));
+        assertEquals(2, histories.size());
+    }
+
+    @Test
+    void size_shouldExpireIdleClients() throws InterruptedException {
+        ClientHistories histories = new ClientHistories(2, Duration.ofMillis(50));
+        Task task = new Task("task", "description");
+        histories.add("alice", task);
+        Thread.sleep(120);
+        assertEquals(0, histories.size());
+        assertTrue(histories.getHistory("alice").isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.ConcurrentHistoryManager;
+import service.managers.InMemoryTaskManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentHistoryManagerTest {
+    private static final int THREADS = 8;
+    ConcurrentHistoryManager historyManager;
+    List<Task> tasks;
+
+    @BeforeEach
+    void beforeEach() {
+        historyManager = new ConcurrentHistoryManager(5);
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        tasks = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            tasks.add(manager.createTask(new Task("Task" + i, "description")));
+        }
+    }
+
+    @Test
+    void getHistory_shouldKeepLastAccessOrder() {
+        historyManager.add(tasks.get(0));
+        historyManager.add(tasks.get(1));
+        historyManager.add(tasks.get(0));
+        historyManager.add(tasks.get(2));
+        historyManager.remove(tasks.get(1).getId());
+        assertEquals(List.of(tasks.get(0), tasks.get(2)), historyManager.getHistory());
+
+        historyManager.add(tasks.get(1));
+        assertEquals(List.of(tasks.get(0), tasks.get(2), tasks.get(1)), historyManager.getHistory());
+    }
+
+    @Test
+    void getRecentHistory_shouldReturnTailOfMergedHistory() {
+        for (int i = 0; i < 4; i++) {
+            historyManager.add(tasks.get(i));
+        }
+        historyManager.add(tasks.get(0));
+        assertEquals(List.of(tasks.get(3), tasks.get(0)), historyManager.getRecentHistory(2));
+    }
+
+    @Test
+    void add_shouldKeepBoundedHistoryWithoutDuplicatesUnderConcurrentViews() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int shift = i;
+            jobs.add(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    historyManager.add(tasks.get((j + shift) % tasks.size()));
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        Task last = tasks.get(3);
+        historyManager.add(last);
+        List<Task> history = historyManager.getHistory();
+        assertEquals(5, history.size());
+        assertEquals(5, new HashSet<>(history).size());
+        assertEquals(last, history.get(4));
+    }
+}
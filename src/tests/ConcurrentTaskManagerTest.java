@@ -0,0 +1,263 @@
+import com.google.gson.Gson;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.ConcurrentTaskManager;
+import service.managers.TasksSnapshot;
+import service.managers.supportServices.ManagerCreateException;
+import service.utilites.Managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @BeforeEach
+    void beforeEach() {
+        manager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void createTask_shouldKeepEpicsConsistentWhenSubtasksAreCreatedConcurrently() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epics.add(manager.createTask(new Epic("epic" + i, "description")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (Epic epic : epics) {
+            jobs.add(() -> {
+                for (int i = 0; i < 200; i++) {
+                    SubTask sub = manager.createTask(new SubTask("sub", "description", epic.getId()));
+                    manager.setStatus(sub, TaskStatus.DONE);
+                    manager.getSubTaskById(sub.getId());
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * 200, manager.getSubTasks().size());
+        assertEquals(THREADS * 201, manager.getPrioritizedTasks().size());
+        for (Epic epic : epics) {
+            assertEquals(200, manager.getAllEpicSubTasks(epic).size());
+            assertEquals(TaskStatus.DONE, epic.getStatus());
+        }
+    }
+
+    @Test
+    void createTask_shouldAcceptOnlyOneOfConcurrentlyCreatedOverlappingTasks() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 21, 17, 0);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int shift = i;
+            jobs.add(() -> {
+                Task task = new Task("task" + shift, "description");
+                task.setStartTime(start.plusMinutes(shift));
+                task.setDuration(Duration.ofMinutes(60));
+                try {
+                    manager.createTask(task);
+                } catch (ManagerCreateException ex) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, manager.getTasks().size());
+        assertEquals(THREADS - 1, rejected.get());
+    }
+
+    @Test
+    void getEpicById_shouldSerializeEpicWhileSubtasksAreCreatedAndRemoved() throws Exception {
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        Gson gson = Managers.getDefaultGson();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Void> writer = executor.submit(() -> {
+            try {
+                for (int i = 0; i < 2_000; i++) {
+                    SubTask subTask = manager.createTask(new SubTask("subtask" + i, "description", epic.getId()));
+                    if (i % 2 == 0) {
+                        manager.removeSubTaskById(subTask.getId());
+                    }
+                }
+            } finally {
+                running.set(false);
+            }
+            return null;
+        });
+        Future<Void> reader = executor.submit(() -> {
+            while (running.get()) {
+                Epic read = gson.fromJson(gson.toJson(manager.getEpicById(epic.getId())), Epic.class);
+                assertEquals(epic.getId(), read.getId());
+            }
+            return null;
+        });
+        writer.get();
+        reader.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1_000, manager.getAllEpicSubTasks(epic).size());
+    }
+
+    @Test
+    void getTaskById_shouldReturnTaskOrNullWhileItIsRemoved() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 500; i++) {
+            Task task = manager.createTask(new Task("task" + i, "description"));
+            Future<Task> reader = executor.submit(() -> manager.getTaskById(task.getId()));
+            Future<?> remover = executor.submit(() -> manager.removeTaskById(task.getId()));
+            Task read = reader.get();
+            remover.get();
+            assertTrue(read == null || read.getId() == task.getId());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
+    // просмотр, пересёкшийся с удалением, не должен вернуть удалённую задачу в историю
+    @Test
+    void getById_shouldNotLeaveRemovedTasksInHistory() throws Exception {
+        manager = (ConcurrentTaskManager) Managers.getConcurrent(10_000);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Epic epic = manager.createTask(new Epic("epic" + i, "description"));
+            created.add(manager.createTask(new SubTask("sub" + i, "description", epic.getId())));
+            created.add(manager.createTask(new Task("task" + i, "description")));
+            created.add(epic);
+        }
+        AtomicBoolean removing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> viewers = new ArrayList<>();
+        for (int i = 0; i < THREADS - 1; i++) {
+            viewers.add(() -> {
+                while (removing.get()) {
+                    for (Task task : created) {
+                        manager.getTaskById(task.getId());
+                        manager.getSubTaskById(task.getId());
+                        manager.getEpicById(task.getId());
+                    }
+                }
+                return null;
+            });
+        }
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> viewer : viewers) {
+            futures.add(executor.submit(viewer));
+        }
+        for (Task task : created) {
+            manager.removeTaskById(task.getId());
+            manager.removeSubTaskById(task.getId());
+            manager.removeEpicById(task.getId());
+        }
+        removing.set(false);
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(), manager.getHistory());
+    }
+
+    // эпик и его подзадачи попадают в срез одним шагом, поэтому статус эпика в срезе всегда
+    // соответствует подзадачам того же среза
+    @Test
+    void getSnapshot_shouldStayConsistentWhileWritersChangeEpics() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epics.add(manager.createTask(new Epic("epic" + i, "description")));
+        }
+        Gson gson = Managers.getDefaultGson();
+        AtomicInteger running = new AtomicInteger(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (Epic epic : epics) {
+            jobs.add(() -> {
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        SubTask subTask = manager.createTask(new SubTask("subtask" + i, "description", epic.getId()));
+                        manager.setStatus(subTask, TaskStatus.DONE);
+                    }
+                } finally {
+                    running.decrementAndGet();
+                }
+                return null;
+            });
+        }
+        jobs.add(() -> {
+            while (running.get() > 0) {
+                TasksSnapshot snapshot = manager.getSnapshot();
+                gson.toJson(snapshot.getEpics().values());
+                gson.toJson(snapshot.getSubTasks().values());
+                for (Epic epic : snapshot.getEpics().values()) {
+                    List<TaskStatus> statuses = new ArrayList<>();
+                    for (SubTask subTask : snapshot.getSubTasks().values()) {
+                        if (subTask.getEpicId() == epic.getId()) {
+                            statuses.add(subTask.getStatus());
+                        }
+                    }
+                    TaskStatus expected = statuses.isEmpty() || !statuses.contains(TaskStatus.DONE)
+                            ? TaskStatus.NEW
+                            : statuses.contains(TaskStatus.NEW) ? TaskStatus.IN_PROGRESS : TaskStatus.DONE;
+                    assertEquals(expected, epic.getStatus());
+                }
+            }
+            return null;
+        });
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        TasksSnapshot snapshot = manager.getSnapshot();
+        assertEquals(THREADS * 300, snapshot.getSubTasks().size());
+        assertEquals(manager.getRevision(), snapshot.getRevision());
+        for (Epic epic : snapshot.getEpics().values()) {
+            assertEquals(TaskStatus.DONE, epic.getStatus());
+        }
+    }
+
+    @Test
+    void getHistory_shouldKeepOnlyCapacityOfHistoryPassedToManager() {
+        manager = (ConcurrentTaskManager) Managers.getConcurrent(2);
+        List<Task> viewed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            viewed.add(manager.getTaskById(manager.createTask(new Task("task" + i, "description")).getId()));
+        }
+
+        assertEquals(viewed.subList(1, 3), manager.getHistory());
+    }
+}
@@ -0,0 +1,80 @@
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.CsvCodec;
+import service.utilites.Managers;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvCodecTest {
+    CsvCodec codec = new CsvCodec();
+
+    @Test
+    void encode_shouldWriteSameRowsAsBeforeForPlainValues() {
+        SubTask subTask = new SubTask("subtask", "description", 1, "21.01.2023 17:00", 60);
+        subTask.setId(2);
+
+        assertEquals("2,SUBTASK,subtask,NEW,description,1,21.01.2023 17:00,21.01.2023 18:00,60",
+                codec.encode(subTask));
+    }
+
+    @Test
+    void encode_shouldQuoteCommasQuotesAndLineBreaks() {
+        Task task = new Task("купить, отдать", "сказал \"да\"\nи ушёл");
+        task.setId(3);
+
+        assertEquals("3,TASK,\"купить, отдать\",NEW,\"сказал \"\"да\"\"\nи ушёл\"", codec.encode(task));
+    }
+
+    @Test
+    void decode_shouldRestoreQuotedValues() {
+        Task task = new Task("a,b", "\"c\"\n,d");
+        task.setId(7);
+        task.setStatus(TaskStatus.DONE);
+        task.setStartTime(LocalDateTime.of(2023, 2, 3, 4, 5));
+        task.setDuration(Duration.ofMinutes(90));
+
+        Task decoded = codec.decode(codec.encode(task));
+        assertEquals(task, decoded);
+        assertEquals(task.getStartTime(), decoded.getStartTime());
+        assertEquals(task.getDuration(), decoded.getDuration());
+    }
+
+    @Test
+    void decode_shouldReadLegacyRowsOfAllTypes() {
+        Task epic = codec.decode("1,EPIC,epic,IN_PROGRESS,description,21.01.2023 17:00,21.01.2023 18:00,60");
+        Task subTask = codec.decode("2,SUBTASK,sub,DONE,description,1,21.01.2023 17:00,21.01.2023 18:00,60");
+
+        assertTrue(epic instanceof Epic);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertNull(epic.getStartTime());
+        assertTrue(subTask instanceof SubTask);
+        assertEquals(1, ((SubTask) subTask).getEpicId());
+        assertEquals(LocalDateTime.of(2023, 1, 21, 17, 0), subTask.getStartTime());
+        assertEquals(60, subTask.getDuration().toMinutes());
+    }
+
+    @Test
+    void write_shouldFormatTimeLikeFormatter() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2024, 12, 9, 7, 3);
+        Task task = new Task("task", "description");
+        task.setStartTime(time);
+        task.setDuration(Duration.ofMinutes(1));
+        StringWriter writer = new StringWriter();
+        codec.write(task, writer);
+
+        assertTrue(writer.toString().contains("," + time.format(Managers.DATE_TIME_FORMATTER) + ","));
+    }
+
+    @Test
+    void decode_shouldThrowIllegalArgumentExceptionForUnclosedQuote() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("1,TASK,\"name,NEW,description"));
+    }
+}
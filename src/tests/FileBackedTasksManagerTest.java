@@ -3,12 +3,16 @@
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import service.managers.FileBackedTasksManager;
+import service.managers.supportServices.Durability;
 import service.managers.supportServices.ManagerSaveException;
+import service.utilites.Managers;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.List;
 
@@ -92,6 +96,58 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         assertEquals("1", fileList.get(3));
     }
 
+    @Test
+    void setStatus_shouldSaveSubtaskAndEpicStatus() {
+        manager.createTask(new Epic("epic", "description"));
+        SubTask sub = manager.createTask(new SubTask("subtask", "description", 1));
+        manager.setStatus(sub, TaskStatus.DONE);
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(TaskStatus.DONE, backedManager.getSubTasks().get(2).getStatus());
+        assertEquals(TaskStatus.DONE, backedManager.getEpics().get(1).getStatus());
+    }
+
+    @Test
+    void createTasks_shouldSaveWholeBatch() {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTasks(List.of(new SubTask("subtask1", "description", 1, "21.01.2023 17:00", 60),
+                new SubTask("subtask2", "description", 1)));
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(manager.getSubTasks(), backedManager.getSubTasks());
+        assertEquals(manager.getEpics().get(1).getEndTime(), backedManager.getEpics().get(1).getEndTime());
+    }
+
+    @Test
+    void getTaskById_shouldNotRewriteFileInDeferredHistoryMode() throws IOException {
+        manager = new FileBackedTasksManager("src/tests/tasksTest.csv", true);
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new Task("task", "description"));
+        String saved = Files.readString(manager.getFileToSave().toPath());
+
+        manager.getEpicById(1);
+        manager.getTaskById(2);
+        assertTrue(manager.isHistoryDirty());
+        assertEquals(saved, Files.readString(manager.getFileToSave().toPath()));
+
+        manager.flush();
+        assertFalse(manager.isHistoryDirty());
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(manager.getHistory(), backedManager.getHistory());
+    }
+
+    @Test
+    void save_shouldWriteDeferredHistoryWithNextTaskChange() {
+        manager = new FileBackedTasksManager("src/tests/tasksTest.csv", true);
+        manager.createTask(new Epic("epic", "description"));
+        manager.getEpicById(1);
+        manager.createTask(new Task("task", "description"));
+
+        assertFalse(manager.isHistoryDirty());
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(manager.getHistory(), backedManager.getHistory());
+    }
+
     @Test
     void save_shouldThrowManagerSaveException() {
         manager = new FileBackedTasksManager("src/");
@@ -112,6 +168,20 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         assertEquals(manager.getHistory(), backedManager.getHistory());
     }
 
+    @Test
+    void loadFromFile_shouldKeepOnlyCapacityOfHistoryPassedToManager() {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1));
+        manager.createTask(new Task("task", "description"));
+        manager.getEpicById(1);
+        manager.getSubTaskById(2);
+        manager.getTaskById(3);
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave(),
+                Durability.NONE, Managers.getDefaultHistory(2));
+        assertEquals(manager.getHistory().subList(1, 3), backedManager.getHistory());
+    }
+
     @Test
     void loadFromFile_loadedManagerTasksSetShouldBeEqualsManagerTasksSet() {
         Epic epic = manager.createTask(new Epic("Epic", "description"));
@@ -191,4 +261,44 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         assertEquals(manager.getSubTasks(), backedManager.getSubTasks());
         assertEquals(manager.getHistory(), backedManager.getHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadFromFile_shouldNotRewriteFileAndShouldContinueIds() throws IOException {
+        manager.createTask(new Epic("Epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:43", 357));
+        manager.createTask(new Task("Task", "task", "19.01.2023 17:41", 315));
+        manager.getTaskById(3);
+        manager.getEpicById(1);
+        List<String> saved = Files.readAllLines(manager.getFileToSave().toPath());
+        long modified = manager.getFileToSave().lastModified() - 60_000;
+        assertTrue(manager.getFileToSave().setLastModified(modified));
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(modified, manager.getFileToSave().lastModified());
+        assertEquals(saved, Files.readAllLines(manager.getFileToSave().toPath()));
+        assertEquals(manager.getHistory(), backedManager.getHistory());
+        assertEquals(manager.getPrioritizedTasks().toString(), backedManager.getPrioritizedTasks().toString());
+        assertEquals(4, backedManager.createTask(new Task("next", "description")).getId());
+    }
+
+    @Test
+    void save_shouldWriteUtf8RegardlessOfPlatformCharset() throws IOException {
+        manager.createTask(new Task("Задача", "описание"));
+
+        String saved = Files.readString(manager.getFileToSave().toPath(), StandardCharsets.UTF_8);
+        assertTrue(saved.contains("1,TASK,Задача,NEW,описание"));
+        assertEquals("Задача", FileBackedTasksManager.loadFromFile(manager.getFileToSave()).getTaskById(1).getName());
+    }
+
+    @Test
+    void loadFromFile_shouldRestoreNamesWithCommasQuotesAndLineBreaks() {
+        manager.createTask(new Task("купить, отдать", "он сказал \"да\"\n\nи ушёл"));
+        manager.createTask(new Epic("epic", "a,b"));
+        manager.getTaskById(1);
+
+        FileBackedTasksManager backedManager = FileBackedTasksManager.loadFromFile(manager.getFileToSave());
+        assertEquals(manager.getTasks(), backedManager.getTasks());
+        assertEquals(manager.getEpics(), backedManager.getEpics());
+        assertEquals(manager.getHistory(), backedManager.getHistory());
+    }
+}
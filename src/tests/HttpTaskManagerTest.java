@@ -3,6 +3,7 @@ import com.google.gson.reflect.TypeToken;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -106,6 +108,44 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         assertEquals(manager.getHistory(), loadedManager.getHistory());
     }
 
+    @Test
+    void enableWriteBehind_shouldSaveTasksOnServerAfterAwaitPersisted() {
+        manager.enableWriteBehind(16);
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "12.01.2023 18:43", 500));
+        manager.getEpicById(1);
+        manager.awaitPersisted(manager.getRevision());
+        manager.flush();
+
+        HttpTaskManager loadedManager = HttpTaskManager.loadFromServer(manager.getClient(), gson);
+        assertEquals(manager.getEpics(), loadedManager.getEpics());
+        assertEquals(manager.getSubTasks(), loadedManager.getSubTasks());
+        assertEquals(manager.getHistory(), loadedManager.getHistory());
+        manager.close();
+    }
+
+    @Test
+    void enableWriteBehind_shouldKeepSavingWhileEpicsAreChanged() {
+        manager.enableWriteBehind(4);
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        for (int i = 0; i < 300; i++) {
+            SubTask subTask = manager.createTask(new SubTask("subtask" + i, "description", epic.getId()));
+            manager.setStatus(subTask, i % 2 == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS);
+            if (i % 3 == 0) {
+                manager.removeSubTaskById(subTask.getId());
+            }
+            manager.getEpicById(epic.getId());
+        }
+        manager.flush();
+
+        HttpTaskManager loadedManager = HttpTaskManager.loadFromServer(manager.getClient(), gson);
+        assertEquals(manager.getEpics(), loadedManager.getEpics());
+        assertEquals(manager.getSubTasks(), loadedManager.getSubTasks());
+        assertEquals(manager.getHistory(), loadedManager.getHistory());
+        assertEquals(TaskStatus.IN_PROGRESS, loadedManager.getEpicById(epic.getId()).getStatus());
+        manager.close();
+    }
+
     @Test
     void save_shouldSaveTasksOnServer() {
         Epic epic = manager.createTaskFromSource(new Epic("Epic", "description"));
@@ -626,4 +666,144 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         assertEquals("Такого эндпоинта не существует", response.body());
         assertEquals(404, response.statusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void endPoint_GetSubtasksByStatusWithCorrectAndIncorrectStatus() throws IOException, InterruptedException {
+        manager.createTask(new Epic("Epic", "description"));
+        manager.createTask(new SubTask("subtask1", "description", 1));
+        SubTask done = manager.createTask(new SubTask("subtask2", "description", 1));
+        manager.setStatus(done, TaskStatus.DONE);
+        HttpClient client = HttpClient.newHttpClient();
+
+        URI uri = URI.create("http://localhost:8080/tasks/subtask?status=DONE");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(done)), response.body());
+        assertEquals(200, response.statusCode());
+
+        uri = URI.create("http://localhost:8080/tasks/epic?status=IN_PROGRESS");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(manager.getEpics().get(1))), response.body());
+
+        uri = URI.create("http://localhost:8080/tasks/task?status=CLOSED");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("Некорректный статус задачи", response.body());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void endPoint_GetTasksBetweenWithCorrectAndIncorrectWindow() throws IOException, InterruptedException {
+        manager.createTask(new Task("task1", "description", "20.01.2023 10:00", 60));
+        Task task = manager.createTask(new Task("task2", "description", "21.01.2023 10:00", 60));
+        HttpClient client = HttpClient.newHttpClient();
+
+        URI uri = URI.create("http://localhost:8080/tasks?from=21.01.2023+00:00&to=22.01.2023%2000:00");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(task)), response.body());
+        assertEquals(200, response.statusCode());
+
+        uri = URI.create("http://localhost:8080/tasks?from=21.01.2023");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("Некорректный интервал времени", response.body());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void endPoint_GetHistoryPageWithCorrectAndIncorrectLimit() throws IOException, InterruptedException {
+        manager.createTask(new Task("task1", "description"));
+        manager.createTask(new Task("task2", "description"));
+        manager.createTask(new Task("task3", "description"));
+        manager.getTaskById(1);
+        manager.getTaskById(2);
+        manager.getTaskById(3);
+        HttpClient client = HttpClient.newHttpClient();
+
+        URI uri = URI.create("http://localhost:8080/tasks/history?offset=1&limit=1");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(manager.getTasks().get(2))), response.body());
+        assertEquals(200, response.statusCode());
+
+        uri = URI.create("http://localhost:8080/tasks/history?last=2");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(manager.getTasks().get(2), manager.getTasks().get(3))), response.body());
+        assertEquals(200, response.statusCode());
+
+        uri = URI.create("http://localhost:8080/tasks/history?last=1&offset=1");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+
+        uri = URI.create("http://localhost:8080/tasks/history?limit=-1");
+        request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("Некорректные параметры истории", response.body());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void endPoint_GetHistoryShouldReturnOwnHistoryOfClient() throws IOException, InterruptedException {
+        manager.createTask(new Task("task1", "description"));
+        manager.createTask(new Task("task2", "description"));
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("alice:1", "bob:2", "alice:2", "alice:1")) {
+            String[] clientAndId = query.split(":");
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks/task?id=" + clientAndId[1]))
+                    .header(HttpTaskServer.CLIENT_ID_HEADER, clientAndId[0])
+                    .GET()
+                    .build();
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        manager.removeTaskById(2);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/history"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "alice")
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(List.of(manager.getTasks().get(1))), response.body());
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/history"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "bob")
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("[]", response.body());
+        assertTrue(manager.getHistory().isEmpty());
+    }
+}
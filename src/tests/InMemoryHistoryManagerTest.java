@@ -5,12 +5,17 @@ import model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import service.managers.HistoryManager;
+import service.managers.InMemoryHistoryManager;
 import service.managers.InMemoryTaskManager;
+import service.utilites.Managers;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InMemoryHistoryManagerTest {
     HistoryManager historyManager;
@@ -113,4 +118,52 @@ class InMemoryHistoryManagerTest {
         assertNotNull(history);
         assertEquals(1, history.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void add_shouldEvictLeastRecentlyViewedTaskWhenCapacityIsReached() {
+        historyManager = Managers.getDefaultHistory(3);
+        Task task1 = manager.createTask(new Task("Task1", "description1"));
+        Task task2 = manager.createTask(new Task("Task2", "description2"));
+        Task task3 = manager.createTask(new Task("Task3", "description3"));
+        Task task4 = manager.createTask(new Task("Task4", "description4"));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.add(task1);
+        historyManager.add(task4);
+        assertEquals(List.of(task3, task1, task4), historyManager.getHistory());
+    }
+
+    @Test
+    void getHistory_shouldKeepDefaultCapacityOfLastViewedTasks() {
+        for (int i = 1; i <= InMemoryHistoryManager.DEFAULT_CAPACITY + 5; i++) {
+            manager.createTask(new Task("Task" + i, "description"));
+            manager.getTaskById(i);
+        }
+        final List<Task> history = manager.getHistory();
+        assertEquals(InMemoryHistoryManager.DEFAULT_CAPACITY, history.size());
+        assertEquals(6, history.get(0).getId());
+    }
+
+    @Test
+    void constructor_shouldRejectNotPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
+
+    @Test
+    void getHistory_shouldReturnPageWithoutCopyingWholeHistory() {
+        for (int i = 1; i <= 5; i++) {
+            Task task = manager.createTask(new Task("Task" + i, "description"));
+            historyManager.add(task);
+        }
+        assertEquals(5, historyManager.size());
+        assertEquals(List.of(2, 3), historyManager.getHistory(1, 2).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        assertEquals(List.of(5), historyManager.getHistory(4, 10).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        assertTrue(historyManager.getHistory(5, 1).isEmpty());
+        assertEquals(List.of(1, 2, 3, 4, 5), historyManager.stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> historyManager.getHistory(-1, 1));
+    }
+}
@@ -1,11 +1,31 @@
 
 
+import model.Task;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import service.managers.InMemoryTaskManager;
+import service.utilites.Managers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     @BeforeEach
     void beforeEach() {
         manager = new InMemoryTaskManager();
     }
+
+    @Test
+    void getHistory_shouldKeepOnlyCapacityOfHistoryPassedToManager() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory(2));
+        Task first = manager.createTask(new Task("task1", "description"));
+        Task second = manager.createTask(new Task("task2", "description"));
+        Task third = manager.createTask(new Task("task3", "description"));
+        manager.getTaskById(first.getId());
+        manager.getTaskById(second.getId());
+        manager.getTaskById(third.getId());
+
+        assertEquals(List.of(second, third), manager.getHistory());
+    }
 }
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.IntObjectHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntObjectHashMapTest {
+    IntObjectHashMap<String> map;
+
+    @BeforeEach
+    void beforeEach() {
+        map = new IntObjectHashMap<>();
+    }
+
+    @Test
+    void put_shouldReplaceValueOfExistingKey() {
+        assertNull(map.put(1, "first"));
+        assertEquals("first", map.put(1, "second"));
+        assertEquals("second", map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void put_shouldNotAcceptNullValue() {
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void remove_shouldKeepOtherKeysReachableAfterManyRemovals() {
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = -500; i < 2000; i++) {
+            map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        for (int i = -500; i < 2000; i += 3) {
+            assertEquals("v" + i, map.remove(i));
+            expected.remove(i);
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        for (int i = -500; i < 2000; i++) {
+            assertEquals(expected.containsKey(i), map.containsKey(i));
+        }
+    }
+
+    @Test
+    void remove_shouldReturnNullForMissingKey() {
+        map.put(1, "first");
+        assertNull(map.remove(2));
+        assertNull(map.remove("1"));
+        assertFalse(map.isEmpty());
+    }
+
+    @Test
+    void clear_shouldRemoveAllEntries() {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        assertFalse(map.values().iterator().hasNext());
+    }
+}
@@ -0,0 +1,233 @@
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.FileBackedTasksManager;
+import service.managers.supportServices.Durability;
+import service.managers.supportServices.ManagerCreateException;
+import service.managers.supportServices.TaskJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledTasksManagerTest extends TaskManagerTest<FileBackedTasksManager> {
+    File file;
+    File journal;
+    File rotated;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = Files.createTempFile("tasks", ".csv").toFile();
+        Files.delete(file.toPath());
+        journal = FileBackedTasksManager.journalFileFor(file);
+        rotated = TaskJournal.rotatedFileFor(journal);
+        manager = new FileBackedTasksManager(file.getPath(), false, true);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(journal.toPath());
+        Files.deleteIfExists(rotated.toPath());
+    }
+
+    @Test
+    void createTask_shouldAppendOneRecordPerChangeWithoutSnapshot() throws IOException {
+        manager.createTask(new Epic("epic", "description"));
+        SubTask subTask = manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:00", 60));
+        manager.setStatus(subTask, TaskStatus.DONE);
+        manager.getSubTaskById(2);
+
+        assertFalse(file.exists());
+        assertEquals(List.of("C,1,EPIC,epic,NEW,description",
+                "C,2,SUBTASK,subtask,NEW,description,1,21.01.2023 17:00,21.01.2023 18:00,60",
+                "S,2,DONE",
+                "V,2"), Files.readAllLines(journal.toPath()));
+    }
+
+    @Test
+    void loadFromFile_shouldReplayJournalOnTopOfSnapshot() {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask1", "description", 1, "21.01.2023 17:00", 60));
+        manager.getEpicById(1);
+        manager.save();
+        assertFalse(journal.exists());
+
+        SubTask subTask = manager.createTask(new SubTask("subtask2", "description", 1, "22.01.2023 17:00", 60));
+        manager.setStatus(subTask, TaskStatus.DONE);
+        Task task = manager.createTask(new Task("task", "description"));
+        task.setName("renamed");
+        manager.updateTask(task);
+        manager.removeSubTaskById(2);
+        manager.getTaskById(task.getId());
+        manager.close();
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertTrue(loaded.isJournaled());
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(manager.getEpics(), loaded.getEpics());
+        assertEquals(manager.getSubTasks(), loaded.getSubTasks());
+        assertEquals(manager.getHistory(), loaded.getHistory());
+        assertEquals(TaskStatus.DONE, loaded.getEpics().get(1).getStatus());
+        assertEquals(5, loaded.createTask(new Task("next", "description")).getId());
+        loaded.close();
+    }
+
+    @Test
+    void loadFromFile_shouldReplayJournalAppliedTwiceAndSkipTornLastRecord() throws IOException {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1));
+        manager.removeSubTaskById(2);
+        manager.close();
+        List<String> records = Files.readAllLines(journal.toPath());
+        Files.write(journal.toPath(), records, StandardOpenOption.APPEND);
+        Files.writeString(journal.toPath(), "C,7,TASK,tor", StandardOpenOption.APPEND);
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(1, loaded.getEpics().size());
+        assertTrue(loaded.getSubTasks().isEmpty());
+        assertTrue(loaded.getTasks().isEmpty());
+        loaded.close();
+    }
+
+    @Test
+    void compact_shouldReplaceSnapshotAndDropJournal() throws ExecutionException, InterruptedException {
+        manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:00", 60));
+        manager.getSubTaskById(2);
+
+        manager.compact().get();
+
+        assertTrue(file.exists());
+        assertFalse(journal.exists());
+        assertFalse(rotated.exists());
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getEpics(), loaded.getEpics());
+        assertEquals(manager.getSubTasks(), loaded.getSubTasks());
+        assertEquals(manager.getHistory(), loaded.getHistory());
+        loaded.close();
+    }
+
+    @Test
+    void compact_shouldKeepChangesMadeDuringCompactionInNewJournal() throws ExecutionException, InterruptedException {
+        manager.createTask(new Task("task1", "description"));
+        manager.compact();
+        Task task = manager.createTask(new Task("task2", "description"));
+        manager.setStatus(task, TaskStatus.IN_PROGRESS);
+        manager.compact().get();
+        manager.close();
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTasks().get(2).getStatus());
+        loaded.close();
+    }
+
+    @Test
+    void setCompactionThresholds_shouldCompactWhenJournalReachesRecordLimit() throws IOException {
+        manager.setCompactionThresholds(3, 0);
+        manager.createTask(new Task("task1", "description"));
+        manager.createTask(new Task("task2", "description"));
+        assertFalse(file.exists());
+
+        manager.createTask(new Task("task3", "description"));
+        manager.createTask(new Task("task4", "description"));
+        manager.close();
+
+        assertTrue(file.exists());
+        assertFalse(rotated.exists());
+        assertTrue(Files.readAllLines(journal.toPath()).size() < 3);
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        loaded.close();
+    }
+
+    @Test
+    void setCompactionThresholds_shouldThrowIllegalArgumentExceptionWhenNegative() {
+        assertThrows(IllegalArgumentException.class, () -> manager.setCompactionThresholds(-1, 0));
+    }
+
+    @Test
+    void loadFromFile_shouldReplayOldJournalLeftAfterSnapshotWasReplaced() throws IOException {
+        Task first = manager.createTask(new Task("first", "description", "21.01.2023 10:00", 60));
+        first.setStartTime(LocalDateTime.of(2023, 1, 21, 12, 0));
+        manager.updateTask(first);
+        manager.createTask(new Task("second", "description", "21.01.2023 10:00", 60));
+        manager.close();
+        List<String> oldRecords = Files.readAllLines(journal.toPath());
+        manager.save();
+        manager.close();
+        // сбой между заменой снимка и удалением старого журнала
+        Files.write(rotated.toPath(), oldRecords);
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(LocalDateTime.of(2023, 1, 21, 12, 0), loaded.getTasks().get(1).getStartTime());
+        assertThrows(ManagerCreateException.class,
+                () -> loaded.createTask(new Task("third", "description", "21.01.2023 10:30", 60)));
+        loaded.close();
+    }
+
+    @Test
+    void loadFromFile_shouldRestoreStateWrittenInSyncMode() {
+        manager.close();
+        manager = new FileBackedTasksManager(file.getPath(), false, true, Durability.SYNC);
+        manager.createTask(new Epic("epic", "description"));
+        SubTask subTask = manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:00", 60));
+        manager.setStatus(subTask, TaskStatus.DONE);
+        manager.flush();
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file, Durability.SYNC);
+        assertEquals(Durability.SYNC, loaded.getDurability());
+        assertEquals(manager.getEpics(), loaded.getEpics());
+        assertEquals(manager.getSubTasks(), loaded.getSubTasks());
+        loaded.close();
+    }
+
+    @Test
+    void enableWriteBehind_shouldMergeConsecutiveChangesOfSameTask() throws IOException {
+        manager.enableWriteBehind(16);
+        Task task = manager.createTask(new Task("task", "description"));
+        for (int i = 0; i < 5; i++) {
+            task.setName("task" + i);
+            manager.updateTask(task);
+        }
+        manager.setStatus(task, TaskStatus.DONE);
+        manager.getTaskById(task.getId());
+        manager.awaitPersisted(manager.getRevision());
+        manager.flush();
+
+        List<String> records = Files.readAllLines(journal.toPath());
+        assertTrue(records.size() < 8);
+        assertEquals("V,1", records.get(records.size() - 1));
+        manager.close();
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(TaskStatus.DONE, loaded.getTasks().get(1).getStatus());
+        assertEquals("task4", loaded.getTasks().get(1).getName());
+        loaded.close();
+    }
+
+    @Test
+    void loadFromFile_shouldReplayRecordsWithQuotedValues() {
+        Task task = manager.createTask(new Task("a,b", "строка\nещё"));
+        task.setName("\"c\"");
+        manager.updateTask(task);
+        manager.close();
+
+        FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        loaded.close();
+    }
+}
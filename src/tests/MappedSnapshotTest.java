@@ -0,0 +1,126 @@
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.BinarySnapshot;
+import service.managers.supportServices.ManagerSaveException;
+import service.managers.supportServices.MappedSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest {
+    File file;
+    List<Task> tasks;
+    List<Epic> epics;
+    List<SubTask> subTasks;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = Files.createTempFile("tasks", ".bin").toFile();
+        tasks = new ArrayList<>();
+        epics = new ArrayList<>();
+        subTasks = new ArrayList<>();
+        // id идут не по порядку: индекс всё равно должен быть отсортирован
+        Task task = new Task("задача, \"первая\"", "описание", "19.01.2023 17:41", 315);
+        task.setId(7);
+        tasks.add(task);
+        Epic epic = new Epic("epic", "description");
+        epic.setId(2);
+        epics.add(epic);
+        SubTask sub = new SubTask("subtask", "description", 2, "21.01.2023 17:43", 357);
+        sub.setId(5);
+        sub.setStatus(TaskStatus.DONE);
+        subTasks.add(sub);
+        BinarySnapshot.write(file, List.of(tasks, epics, subTasks), List.of(5, 7), false, true);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    void get_shouldDecodeOnlyRequestedTask() {
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+        assertEquals(3, snapshot.size());
+        Task task = snapshot.get(7);
+        assertEquals(tasks.get(0), task);
+        assertEquals(tasks.get(0).getStartTime(), task.getStartTime());
+        assertEquals(tasks.get(0).getDuration(), task.getDuration());
+        SubTask sub = (SubTask) snapshot.get(5);
+        assertEquals(subTasks.get(0), sub);
+        assertEquals(2, sub.getEpicId());
+        assertEquals(epics.get(0), snapshot.get(2));
+    }
+
+    @Test
+    void get_shouldReturnNullWhenIdAbsent() {
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+        assertNull(snapshot.get(1));
+        assertNull(snapshot.get(6));
+        assertNull(snapshot.get(100));
+        assertTrue(snapshot.contains(5));
+        assertFalse(snapshot.contains(3));
+    }
+
+    @Test
+    void readAll_shouldReturnTasksInWriteOrderAndHistory() {
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+        assertEquals(List.of(tasks.get(0), epics.get(0), subTasks.get(0)), snapshot.readAll());
+        assertEquals(List.of(5, 7), snapshot.getHistory());
+    }
+
+    @Test
+    void tasks_shouldDecodeTasksInIdOrder() {
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+        assertEquals(List.of(epics.get(0), subTasks.get(0), tasks.get(0)), snapshot.tasks());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.tasks().get(3));
+    }
+
+    @Test
+    void open_shouldReadEmptySnapshot() {
+        BinarySnapshot.write(file, List.of(), List.of(), false, true);
+        MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+        assertEquals(0, snapshot.size());
+        assertTrue(snapshot.readAll().isEmpty());
+        assertTrue(snapshot.tasks().isEmpty());
+        assertTrue(snapshot.getHistory().isEmpty());
+        assertNull(snapshot.get(1));
+    }
+
+    @Test
+    void open_shouldThrowManagerSaveExceptionWhenTruncated() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertThrows(ManagerSaveException.class, () -> MappedSnapshot.open(file));
+    }
+
+    @Test
+    void open_shouldThrowManagerSaveExceptionWhenIndexAbsent() {
+        BinarySnapshot.write(file, List.of(tasks, epics, subTasks), List.of(5, 7), false, false);
+        assertThrows(ManagerSaveException.class, () -> MappedSnapshot.open(file));
+        assertEquals(List.of(tasks.get(0), epics.get(0), subTasks.get(0)), BinarySnapshot.read(file).getTasks());
+    }
+
+    @Test
+    void open_shouldThrowManagerSaveExceptionWhenNotBinary() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic,startTime,endTime,duration\n");
+        assertThrows(ManagerSaveException.class, () -> MappedSnapshot.open(file));
+    }
+}
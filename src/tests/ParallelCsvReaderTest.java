@@ -0,0 +1,120 @@
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.FileBackedTasksManager;
+import service.managers.supportServices.ParallelCsvReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvReaderTest {
+    static ForkJoinPool pool;
+    File file;
+    FileBackedTasksManager manager;
+
+    @BeforeAll
+    static void beforeAll() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        pool.shutdown();
+    }
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = Files.createTempFile("tasks", ".csv").toFile();
+        manager = new FileBackedTasksManager(file.getPath());
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private void fill(int epicsCount) {
+        for (int i = 0; i < epicsCount; i++) {
+            Epic epic = manager.createTask(new Epic("epic" + i, "описание"));
+            manager.createTask(new SubTask("sub" + i, "описание", epic.getId()));
+            manager.createTask(new Task("task" + i, "описание"));
+        }
+        manager.getTaskById(3);
+        manager.getEpicById(1);
+    }
+
+    private Map<Integer, Task> byId(List<Task> tasks) {
+        Map<Integer, Task> result = new HashMap<>();
+        tasks.forEach(task -> result.put(task.getId(), task));
+        return result;
+    }
+
+    @Test
+    void read_shouldParseAllRowsSplitIntoSmallChunks() {
+        fill(100);
+
+        ParallelCsvReader.Result result = new ParallelCsvReader(pool, 256)
+                .read(file, FileBackedTasksManager::fromString);
+        assertEquals(300, result.getTasks().size());
+        Map<Integer, Task> loaded = byId(result.getTasks());
+        manager.getTasks().forEach((id, task) -> assertEquals(task, loaded.get(id)));
+        manager.getSubTasks().forEach((id, sub) -> assertEquals(sub, loaded.get(id)));
+        manager.getEpics().forEach((id, epic) -> assertEquals(epic.getName(), loaded.get(id).getName()));
+        assertEquals("3,1", result.getHistory());
+    }
+
+    @Test
+    void read_shouldKeepRowOrderOfFile() throws IOException {
+        fill(20);
+
+        List<Task> tasks = new ParallelCsvReader(pool, 64).read(file, FileBackedTasksManager::fromString).getTasks();
+        List<String> lines = Files.readAllLines(file.toPath());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(lines.get(i + 1), manager.toString(tasks.get(i)));
+        }
+    }
+
+    @Test
+    void read_shouldReturnNoHistoryWhenItWasNotSaved() {
+        manager.createTask(new Task("task", "description"));
+
+        ParallelCsvReader.Result result = new ParallelCsvReader(pool, 16).read(file, FileBackedTasksManager::fromString);
+        assertEquals(1, result.getTasks().size());
+        assertNull(result.getHistory());
+    }
+
+    @Test
+    void read_shouldReturnEmptyResultForHeaderOnly() {
+        manager.save();
+
+        ParallelCsvReader.Result result = new ParallelCsvReader(pool, 16).read(file, FileBackedTasksManager::fromString);
+        assertTrue(result.getTasks().isEmpty());
+        assertNull(result.getHistory());
+    }
+
+    @Test
+    void read_shouldNotSplitQuotedValuesWithLineBreaks() {
+        for (int i = 0; i < 50; i++) {
+            manager.createTask(new Task("task, " + i, "строка\n\nещё \"одна\"\n" + i));
+        }
+        manager.getTaskById(2);
+
+        ParallelCsvReader.Result result = new ParallelCsvReader(pool, 32).read(file, FileBackedTasksManager::fromString);
+        assertEquals(50, result.getTasks().size());
+        Map<Integer, Task> loaded = byId(result.getTasks());
+        manager.getTasks().forEach((id, task) -> assertEquals(task, loaded.get(id)));
+        assertEquals("2", result.getHistory());
+    }
+}
@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentIntMapTest {
+
+    @Test
+    void plus_shouldNotChangePreviousVersion() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().plus(1, "first");
+        PersistentIntMap<String> second = first.plus(1, "second").plus(2, "other");
+
+        assertEquals("first", first.get(1));
+        assertNull(first.get(2));
+        assertEquals(1, first.size());
+        assertEquals("second", second.get(1));
+        assertEquals(2, second.size());
+        assertTrue(PersistentIntMap.empty().isEmpty());
+    }
+
+    @Test
+    void plusAndMinus_shouldReturnSameMapWhenNothingChanges() {
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().plus(1, "first");
+
+        assertSame(map, map.plus(1, map.get(1)));
+        assertSame(map, map.minus(2));
+    }
+
+    @Test
+    void plus_shouldNotAcceptNullValue() {
+        assertThrows(NullPointerException.class, () -> PersistentIntMap.<String>empty().plus(1, null));
+    }
+
+    @Test
+    void minus_shouldKeepOtherKeysAndPreviousVersion() {
+        Map<Integer, String> expected = new TreeMap<>();
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        for (int i = -500; i < 2000; i++) {
+            map = map.plus(i * 37, "v" + i);
+            expected.put(i * 37, "v" + i);
+        }
+        PersistentIntMap<String> full = map;
+        for (int i = -500; i < 2000; i += 3) {
+            map = map.minus(i * 37);
+            expected.remove(i * 37);
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(2500, full.size());
+        for (int i = -500; i < 2000; i++) {
+            assertEquals(expected.containsKey(i * 37), map.containsKey(i * 37));
+            assertEquals("v" + i, full.get(i * 37));
+        }
+        for (Integer key : new ArrayList<>(expected.keySet())) {
+            map = map.minus(key);
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    void entrySet_shouldIterateInKeyOrderIncludingNegativeKeys() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        int[] keys = {Integer.MAX_VALUE, 5, -1, 0, Integer.MIN_VALUE, 1 << 20, 31, 32, -33};
+        for (int key : keys) {
+            map = map.plus(key, String.valueOf(key));
+        }
+
+        List<Integer> expected = List.of(Integer.MIN_VALUE, -33, -1, 0, 5, 31, 32, 1 << 20, Integer.MAX_VALUE);
+        assertEquals(expected, new ArrayList<>(map.keySet()));
+        assertEquals(String.valueOf(Integer.MIN_VALUE), map.get(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void put_shouldThrowUnsupportedOperationException() {
+        Map<Integer, String> map = PersistentIntMap.<String>empty().plus(1, "first");
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put(2, "second"));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove(1));
+    }
+}
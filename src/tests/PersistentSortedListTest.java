@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.PersistentSortedList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentSortedListTest {
+
+    @Test
+    void plus_shouldKeepOrderAndNotChangePreviousVersion() {
+        PersistentSortedList<Integer> first = new PersistentSortedList<Integer>(Comparator.naturalOrder()).plus(5);
+        PersistentSortedList<Integer> second = first.plus(1).plus(9).plus(3);
+
+        assertEquals(List.of(5), first);
+        assertEquals(List.of(1, 3, 5, 9), second);
+        assertEquals(9, second.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> second.get(4));
+    }
+
+    @Test
+    void plusAndMinus_shouldReturnSameListWhenNothingChanges() {
+        PersistentSortedList<Integer> list = new PersistentSortedList<Integer>(Comparator.naturalOrder()).plus(1);
+
+        assertSame(list, list.plus(list.get(0)));
+        assertSame(list, list.minus(2));
+    }
+
+    @Test
+    void plusAndMinus_shouldMatchTreeSetOnRandomChanges() {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentSortedList<Integer> list = new PersistentSortedList<>(Comparator.naturalOrder());
+        List<PersistentSortedList<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> contents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                expected.add(value);
+                list = list.plus(value);
+            } else {
+                expected.remove(value);
+                list = list.minus(value);
+            }
+            if (i % 500 == 0) {
+                versions.add(list);
+                contents.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), list);
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(contents.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void add_shouldThrowUnsupportedOperationException() {
+        List<Integer> list = new PersistentSortedList<Integer>(Comparator.naturalOrder()).plus(1);
+
+        assertThrows(UnsupportedOperationException.class, () -> list.add(2));
+        assertThrows(UnsupportedOperationException.class, list::clear);
+        assertTrue(new PersistentSortedList<Integer>(Comparator.naturalOrder()).isEmpty());
+    }
+}
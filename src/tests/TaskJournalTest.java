@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.Durability;
+import service.managers.supportServices.TaskJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJournalTest {
+    private static final int THREADS = 8;
+    File file;
+    TaskJournal journal;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = Files.createTempFile("tasks", ".journal").toFile();
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        journal.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    void write_shouldNotForceInNoneMode() {
+        journal = new TaskJournal(file, Durability.NONE);
+        journal.write(TaskJournal.VIEW, "1");
+        journal.write(TaskJournal.VIEW, "2");
+        journal.close();
+
+        assertEquals(0, journal.getForceCount());
+        assertEquals(2, TaskJournal.readRecords(file).size());
+    }
+
+    @Test
+    void write_shouldForceEachWriteInSyncMode() {
+        journal = new TaskJournal(file, Durability.SYNC);
+        journal.write(TaskJournal.VIEW, "1");
+        journal.write(TaskJournal.VIEW, "2");
+        journal.write(TaskJournal.VIEW, "3");
+
+        assertEquals(3, journal.getForceCount());
+    }
+
+    @Test
+    void write_shouldShareForceBetweenConcurrentWritersInSyncMode() throws Exception {
+        journal = new TaskJournal(file, Durability.SYNC);
+        int perThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    journal.write(TaskJournal.VIEW, thread + "-" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * perThread, TaskJournal.readRecords(file).size());
+        assertTrue(journal.getForceCount() <= THREADS * perThread);
+    }
+
+    @Test
+    void write_shouldForceWhenBatchIsFullInBatchedMode() {
+        journal = new TaskJournal(file, Durability.BATCHED);
+        journal.setBatchLimits(60_000, 5);
+        for (int i = 1; i <= 4; i++) {
+            journal.write(TaskJournal.VIEW, String.valueOf(i));
+        }
+        assertEquals(0, journal.getForceCount());
+
+        journal.write(TaskJournal.VIEW, "5");
+        assertEquals(1, journal.getForceCount());
+    }
+
+    @Test
+    void write_shouldForceAfterBatchIntervalInBatchedMode() throws InterruptedException {
+        journal = new TaskJournal(file, Durability.BATCHED);
+        journal.setBatchLimits(20, 1000);
+        journal.write(TaskJournal.VIEW, "1");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (journal.getForceCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, journal.getForceCount());
+    }
+
+    @Test
+    void close_shouldForceUnsyncedRecordsInBatchedMode() {
+        journal = new TaskJournal(file, Durability.BATCHED);
+        journal.setBatchLimits(60_000, 1000);
+        journal.write(TaskJournal.VIEW, "1");
+        journal.close();
+
+        assertEquals(1, journal.getForceCount());
+    }
+
+    @Test
+    void setBatchLimits_shouldThrowIllegalArgumentExceptionWhenNotPositive() {
+        journal = new TaskJournal(file, Durability.BATCHED);
+        assertThrows(IllegalArgumentException.class, () -> journal.setBatchLimits(0, 10));
+    }
+}
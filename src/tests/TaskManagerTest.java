@@ -3,13 +3,18 @@ import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TasksType;
 import org.junit.jupiter.api.Test;
 import service.managers.TaskManager;
+import service.managers.TasksSnapshot;
 import service.managers.supportServices.ManagerCreateException;
 import service.utilites.Managers;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,7 +85,7 @@ abstract class TaskManagerTest<T extends TaskManager> {
         manager.createTask(new Epic("epic", "description"));
         manager.createTask(new SubTask("subtask", "description", 1));
 
-        HashMap<Integer, SubTask> subtasksMap = manager.getAllEpicSubTasks(manager.getEpicById(1));
+        Map<Integer, SubTask> subtasksMap = manager.getAllEpicSubTasks(manager.getEpicById(1));
         for (Map.Entry<Integer, SubTask> subTaskEntry : subtasksMap.entrySet()) {
             assertEquals(2, subTaskEntry.getKey(), "Подзадачи с таким ID не существует");
             assertEquals(manager.getSubTaskById(2),
@@ -303,6 +308,47 @@ abstract class TaskManagerTest<T extends TaskManager> {
                         1, "21.01.2023 18:00", 357)));
     }
 
+    @Test
+    void createTask_shouldThrowCreateExceptionWhenNewTaskOverlapsStartOfExisting() {
+        manager.createTask(new Task("task1", "description", "21.01.2023 17:00", 60));
+        ManagerCreateException ex = assertThrows(ManagerCreateException.class, () -> manager.createTask(
+                new Task("task2", "description", "21.01.2023 16:30", 45)));
+        assertEquals("Задачи пересекаются по времени", ex.getMessage());
+    }
+
+    @Test
+    void createTask_shouldThrowCreateExceptionWhenNewTaskContainsOrIsContainedInExisting() {
+        manager.createTask(new Task("task1", "description", "21.01.2023 17:00", 60));
+        assertThrows(ManagerCreateException.class, () -> manager.createTask(
+                new Task("task2", "description", "21.01.2023 16:00", 240)));
+        assertThrows(ManagerCreateException.class, () -> manager.createTask(
+                new Task("task3", "description", "21.01.2023 17:10", 20)));
+        assertThrows(ManagerCreateException.class, () -> manager.createTask(
+                new Task("task4", "description", "21.01.2023 17:00", 60)));
+    }
+
+    @Test
+    void createTask_shouldNotThrowCreateExceptionWhenTimeSlotWasReleased() {
+        Task task = manager.createTask(new Task("task1", "description", "21.01.2023 17:00", 60));
+        manager.removeTask(task);
+        assertDoesNotThrow(() -> manager.createTask(
+                new Task("task2", "description", "21.01.2023 17:30", 60)));
+    }
+
+    @Test
+    void updateTask_shouldThrowCreateExceptionWhenNewTimeOverlapsAnotherTask() {
+        manager.createTask(new Task("task1", "description", "21.01.2023 17:00", 60));
+        Task task = manager.createTask(new Task("task2", "description", "21.01.2023 19:00", 60));
+        Task updated = new Task("task2", "description", "21.01.2023 17:30", 60);
+        updated.setId(task.getId());
+        assertThrows(ManagerCreateException.class, () -> manager.updateTask(updated));
+
+        Task moved = new Task("task2", "description", "21.01.2023 19:30", 60);
+        moved.setId(task.getId());
+        assertDoesNotThrow(() -> manager.updateTask(moved));
+        assertEquals(moved.getStartTime(), manager.getTasks().get(task.getId()).getStartTime());
+    }
+
     @Test
     void clearAllTasks_shouldMapOfTasksBeEmptyWhenClearAllTasksIsCalled() {
         Task task1 = manager.createTask(new Task("Task1", "description1"));
@@ -554,6 +600,35 @@ abstract class TaskManagerTest<T extends TaskManager> {
 
     }
 
+    @Test
+    void getStartTime_EpicTimeShouldShrinkWhenEarliestAndLatestSubtasksWereRemoved() {
+        Epic epic = manager.createTask(new Epic("Epic", "description"));
+        SubTask subtask1 = manager.createTask(new SubTask("subtask1", "description",
+                1, "21.01.2023 17:43", 357));
+        SubTask subtask2 = manager.createTask(new SubTask("subtask2", "description",
+                1, "23.01.2023 17:16", 78));
+        SubTask subtask3 = manager.createTask(new SubTask("subtask3", "description",
+                1, "27.01.2023 18:01", 78));
+        manager.removeSubTask(subtask1);
+        manager.removeSubTask(subtask3);
+        assertEquals(subtask2.getStartTime(), epic.getStartTime());
+        assertEquals(subtask2.getEndTime(), epic.getEndTime());
+        assertEquals(78, epic.getDuration().toMinutes());
+    }
+
+    @Test
+    void setStatus_EpicStatusShouldBeDoneWhenLastNotDoneSubtaskWasRemoved() {
+        Epic epic = manager.createTask(new Epic("Epic", "description"));
+        SubTask subtask1 = manager.createTask(new SubTask("subtask1", "description", 1));
+        SubTask subtask2 = manager.createTask(new SubTask("subtask2", "description", 1));
+        manager.setStatus(subtask1, TaskStatus.DONE);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        manager.removeSubTask(subtask2);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        manager.setStatus(subtask1, TaskStatus.NEW);
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+    }
+
     @Test
     void getDuration_shouldReturnNullWhenEpicDoesNotHaveSubtasksOrSubsDoesNotHaveTime() {
         Epic epic = manager.createTask(new Epic("Epic", "description"));
@@ -633,4 +708,228 @@ abstract class TaskManagerTest<T extends TaskManager> {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void getSnapshot_shouldReturnSameSnapshotUntilManagerChanges() {
+        manager.createTask(new Task("task1", "description"));
+        TasksSnapshot snapshot = manager.getSnapshot();
+        assertSame(snapshot, manager.getSnapshot());
+        assertEquals(manager.getRevision(), snapshot.getRevision());
+
+        manager.createTask(new Task("task2", "description"));
+        TasksSnapshot next = manager.getSnapshot();
+        assertNotSame(snapshot, next);
+        assertTrue(next.getRevision() > snapshot.getRevision());
+        assertEquals(1, snapshot.getTasks().size());
+        assertEquals(2, next.getTasks().size());
+        assertEquals(2, next.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void getSnapshot_shouldNotChangeWhenTaskIsRemoved() {
+        Epic epic = manager.createTask(new Epic("Epic", "description"));
+        manager.createTask(new SubTask("subtask", "description", 1));
+        TasksSnapshot snapshot = manager.getSnapshot();
+        manager.removeEpic(epic);
+        assertEquals(1, snapshot.getEpics().size());
+        assertEquals(1, snapshot.getSubTasks().size());
+        assertTrue(manager.getSnapshot().getEpics().isEmpty());
+    }
+
+    @Test
+    void getSnapshot_shouldKeepStateOfTasksAtItsRevision() {
+        Epic epic = manager.createTask(new Epic("Epic", "description"));
+        SubTask subTask = manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:43", 30));
+        TasksSnapshot snapshot = manager.getSnapshot();
+
+        manager.setStatus(subTask, TaskStatus.DONE);
+        subTask.setName("changed");
+        assertEquals(TaskStatus.NEW, snapshot.getSubTasks().get(2).getStatus());
+        assertEquals("subtask", snapshot.getSubTasks().get(2).getName());
+        assertEquals(TaskStatus.NEW, snapshot.getEpics().get(1).getStatus());
+        assertNotSame(epic, snapshot.getEpics().get(1));
+        assertEquals(TaskStatus.DONE, manager.getSnapshot().getSubTasks().get(2).getStatus());
+        assertEquals(TaskStatus.DONE, manager.getSnapshot().getEpics().get(1).getStatus());
+        assertEquals(subTask.getEndTime(), manager.getSnapshot().getEpics().get(1).getEndTime());
+        assertEquals(TaskStatus.NEW, snapshot.getPrioritizedTasks().get(0).getStatus());
+        assertEquals(TaskStatus.DONE, manager.getSnapshot().getPrioritizedTasks().get(0).getStatus());
+    }
+
+    @Test
+    void getSnapshot_shouldListTasksByIdAndPrioritizedByStartTime() {
+        manager.createTask(new Task("late", "description", "21.01.2023 17:43", 30));
+        manager.createTask(new Task("untimed", "description"));
+        manager.createTask(new Task("early", "description", "19.01.2023 17:41", 30));
+        TasksSnapshot snapshot = manager.getSnapshot();
+
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(snapshot.getTasks().keySet()));
+        assertEquals(List.of("early", "late", "untimed"), snapshot.getPrioritizedTasks().stream()
+                .map(Task::getName)
+                .collect(Collectors.toList()));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTasks().remove(1));
+    }
+
+    @Test
+    void getTasks_shouldReturnReadOnlyView() {
+        Task task = manager.createTask(new Task("task", "description"));
+        assertThrows(UnsupportedOperationException.class, () -> manager.getTasks().remove(task.getId()));
+        assertThrows(UnsupportedOperationException.class, () -> manager.getPrioritizedTasks().clear());
+        assertEquals(task, manager.getTasks().get(task.getId()));
+    }
+
+    @Test
+    void createTasks_shouldAssignConsecutiveIdsInBatchOrder() {
+        manager.createTask(new Epic("epic", "description"));
+        List<Task> created = manager.createTasks(List.of(
+                new Task("task1", "description", "21.01.2023 17:00", 60),
+                new SubTask("subtask", "description", 1, "21.01.2023 19:00", 30),
+                new Task("task2", "description", "21.01.2023 18:00", 60)));
+
+        assertEquals(List.of(2, 3, 4), created.stream().map(Task::getId).collect(Collectors.toList()));
+        assertEquals(2, manager.getTasks().size());
+        assertEquals(1, manager.getAllEpicSubTasks(manager.getEpics().get(1)).size());
+        assertEquals(4, manager.getPrioritizedTasks().size());
+        assertEquals(5, manager.createTask(new Task("task3", "description")).getId());
+    }
+
+    @Test
+    void createTasks_shouldRejectWholeBatchWhenTasksOfBatchOverlap() {
+        List<Task> batch = List.of(
+                new Task("task1", "description", "21.01.2023 17:00", 60),
+                new Task("task2", "description"),
+                new Task("task3", "description", "21.01.2023 17:59", 60));
+        assertThrows(ManagerCreateException.class, () -> manager.createTasks(batch));
+        assertTrue(manager.getTasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void createTasks_shouldRejectBatchOverlappingExistingTask() {
+        manager.createTask(new Task("task", "description", "21.01.2023 17:00", 60));
+        List<Task> batch = List.of(
+                new Task("task1", "description", "21.01.2023 16:00", 30),
+                new Task("task2", "description", "21.01.2023 17:30", 10));
+        assertThrows(ManagerCreateException.class, () -> manager.createTasks(batch));
+        assertEquals(1, manager.getTasks().size());
+    }
+
+    @Test
+    void removeTaskById_shouldReturnRemovedTaskAndNullWhenIdIsUnknown() {
+        Task task = manager.createTask(new Task("task", "description", "21.01.2023 17:00", 60));
+        manager.getTaskById(task.getId());
+
+        assertEquals(task, manager.removeTaskById(task.getId()));
+        assertNull(manager.removeTaskById(task.getId()));
+        assertTrue(manager.getTasks().isEmpty());
+        assertTrue(manager.getHistory().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        manager.createTask(new Task("task", "description", "21.01.2023 17:30", 60));
+    }
+
+    @Test
+    void removeSubTaskById_shouldUpdateEpic() {
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        SubTask subTask = manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 17:00", 60));
+        manager.setStatus(subTask, TaskStatus.DONE);
+
+        assertEquals(subTask, manager.removeSubTaskById(subTask.getId()));
+        assertTrue(manager.getAllEpicSubTasks(epic).isEmpty());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertNull(epic.getStartTime());
+    }
+
+    @Test
+    void removeEpicById_shouldRemoveEpicWithSubtasks() {
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        manager.createTask(new SubTask("subtask1", "description", 1, "21.01.2023 17:00", 60));
+        manager.createTask(new SubTask("subtask2", "description", 1));
+        manager.getSubTaskById(2);
+        manager.getEpicById(1);
+
+        assertEquals(epic, manager.removeEpicById(epic.getId()));
+        assertTrue(manager.getEpics().isEmpty());
+        assertTrue(manager.getSubTasks().isEmpty());
+        assertTrue(manager.getHistory().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        assertNull(manager.removeEpicById(epic.getId()));
+    }
+
+    @Test
+    void getByStatus_shouldFollowSubtaskAndEpicStatusChanges() {
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        SubTask subTask1 = manager.createTask(new SubTask("subtask1", "description", 1));
+        SubTask subTask2 = manager.createTask(new SubTask("subtask2", "description", 1));
+        assertEquals(List.of(epic), manager.getByStatus(TaskStatus.NEW, TasksType.EPIC));
+
+        manager.setStatus(subTask1, TaskStatus.DONE);
+        assertEquals(List.of(subTask1), manager.getByStatus(TaskStatus.DONE, TasksType.SUBTASK));
+        assertEquals(List.of(subTask2), manager.getByStatus(TaskStatus.NEW, TasksType.SUBTASK));
+        assertEquals(List.of(epic), manager.getByStatus(TaskStatus.IN_PROGRESS, TasksType.EPIC));
+
+        manager.removeSubTaskById(subTask2.getId());
+        assertTrue(manager.getByStatus(TaskStatus.NEW, TasksType.SUBTASK).isEmpty());
+        assertEquals(List.of(epic), manager.getByStatus(TaskStatus.DONE, TasksType.EPIC));
+        assertTrue(manager.getByStatus(TaskStatus.IN_PROGRESS, TasksType.EPIC).isEmpty());
+    }
+
+    @Test
+    void getByStatus_shouldFollowUpdatedAndRemovedTasks() {
+        Task task = manager.createTask(new Task("task", "description"));
+        Task updated = new Task("task", "new description");
+        updated.setId(task.getId());
+        updated.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updated);
+
+        assertTrue(manager.getByStatus(TaskStatus.NEW, TasksType.TASK).isEmpty());
+        assertEquals(List.of(updated), manager.getByStatus(TaskStatus.IN_PROGRESS, TasksType.TASK));
+        manager.removeTaskById(task.getId());
+        assertTrue(manager.getByStatus(TaskStatus.IN_PROGRESS, TasksType.TASK).isEmpty());
+    }
+
+    @Test
+    void getTasksBetween_shouldReturnTasksStartingInsideWindow() {
+        manager.createTask(new Epic("epic", "description"));
+        Task early = manager.createTask(new Task("early", "description", "20.01.2023 10:00", 60));
+        SubTask inside = manager.createTask(new SubTask("inside", "description", 1, "21.01.2023 10:00", 60));
+        Task edge = manager.createTask(new Task("edge", "description", "22.01.2023 10:00", 60));
+        manager.createTask(new Task("without time", "description"));
+        LocalDateTime from = LocalDateTime.of(2023, 1, 21, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 1, 22, 10, 0);
+
+        assertEquals(List.of(manager.getEpics().get(1), inside),
+                new ArrayList<>(manager.getTasksBetween(from, to)));
+        assertEquals(List.of(early), new ArrayList<>(manager.getTasksBetween(null, from)));
+        assertEquals(List.of(edge), new ArrayList<>(manager.getTasksBetween(to, null)));
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksBetween(to, from));
+    }
+
+    @Test
+    void updateTask_shouldApplyChangesMadeInPlace() {
+        Task first = manager.createTask(new Task("first", "description", "21.01.2023 10:00", 60));
+        Task second = manager.createTask(new Task("second", "description", "21.01.2023 12:00", 60));
+        long version = first.getVersion();
+        assertFalse(first.isModified());
+
+        first.setStartTime(LocalDateTime.of(2023, 1, 21, 14, 0));
+        assertTrue(first.isModified());
+        assertTrue(first.getVersion() > version);
+        manager.updateTask(first);
+
+        assertFalse(first.isModified());
+        assertEquals(List.of(second, first), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertEquals(2, manager.getPrioritizedTasks().size());
+        assertDoesNotThrow(() -> manager.createTask(new Task("third", "description", "21.01.2023 10:00", 60)));
+    }
+
+    @Test
+    void updateTask_epicEqualityShouldNotDependOnSubtasks() {
+        Epic epic = manager.createTask(new Epic("epic", "description"));
+        int hash = epic.hashCode();
+        long version = epic.getVersion();
+        manager.createTask(new SubTask("subtask", "description", 1, "21.01.2023 10:00", 60));
+
+        assertEquals(hash, epic.hashCode());
+        assertTrue(epic.getVersion() > version);
+        assertFalse(epic.isModified());
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.managers.supportServices.ManagerSaveException;
+import service.managers.supportServices.WriteBehindQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindQueueTest {
+    final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch release = new CountDownLatch(1);
+    WriteBehindQueue<String> queue;
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        queue.close();
+    }
+
+    // писатель ждёт release, пока не записал первую запись "block"
+    private WriteBehindQueue<String> blockingQueue(int capacity) {
+        return new WriteBehindQueue<>("test-writer", capacity, (older, newer) -> older + newer, batch -> {
+            if (batch.contains("block")) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            written.addAll(batch);
+        });
+    }
+
+    @Test
+    void submit_shouldMergeConsecutiveChangesOfSameKey() {
+        queue = blockingQueue(10);
+        queue.submit(0, "block", 1);
+        queue.submit(1, "a", 2);
+        queue.submit(1, "b", 3);
+        queue.submit(2, "c", 4);
+        queue.submit(1, "d", 5);
+        release.countDown();
+        queue.flush();
+
+        assertEquals(List.of("block", "ab", "c", "d"), written);
+    }
+
+    @Test
+    void submit_shouldWaitWhileQueueIsFull() throws InterruptedException {
+        queue = blockingQueue(1);
+        queue.submit(0, "block", 1);
+        queue.submit(1, "a", 2);
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            queue.submit(2, "b", 3);
+            submitted.set(true);
+        });
+        producer.start();
+        producer.join(200);
+        assertFalse(submitted.get());
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertTrue(submitted.get());
+        queue.awaitPersisted(3);
+        assertEquals(List.of("block", "a", "b"), written);
+    }
+
+    @Test
+    void awaitPersisted_shouldReturnWhenRevisionIsWritten() {
+        queue = blockingQueue(10);
+        queue.submit(1, "a", 1);
+        queue.submit(2, "b", 2);
+        queue.awaitPersisted(2);
+
+        assertEquals(List.of("a", "b"), written);
+    }
+
+    @Test
+    void flush_shouldThrowManagerSaveExceptionWhenWriterFailed() {
+        queue = new WriteBehindQueue<>("test-writer", 10, (older, newer) -> null, batch -> {
+            throw new IllegalStateException("диск недоступен");
+        });
+        queue.submit(1, "a", 1);
+
+        assertThrows(ManagerSaveException.class, queue::flush);
+        assertThrows(ManagerSaveException.class, () -> queue.submit(2, "b", 2));
+    }
+}